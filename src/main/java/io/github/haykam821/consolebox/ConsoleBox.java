@@ -1,11 +1,25 @@
 package io.github.haykam821.consolebox;
 
 import eu.pb4.playerdata.api.PlayerDataApi;
+import io.github.haykam821.consolebox.command.ConsoleBoxCommand;
+import io.github.haykam821.consolebox.game.ArcadeHall;
+import io.github.haykam821.consolebox.game.ArcadeHallConfig;
+import io.github.haykam821.consolebox.game.CartSaveStore;
 import io.github.haykam821.consolebox.game.ConsoleBoxConfig;
 import io.github.haykam821.consolebox.game.ConsoleBoxGame;
+import io.github.haykam821.consolebox.game.ConsoleDirectories;
+import io.github.haykam821.consolebox.game.ConsoleHibernation;
+import io.github.haykam821.consolebox.game.ConsoleResourceTracker;
+import io.github.haykam821.consolebox.game.ConsoleWarmPool;
+import io.github.haykam821.consolebox.game.ConsoleWorldPool;
+import io.github.haykam821.consolebox.game.DisplayMirror;
 import io.github.haykam821.consolebox.game.SaveHandler;
+import io.github.haykam821.consolebox.game.palette.ColorLookup;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
 import io.github.haykam821.consolebox.resource.ConsoleGameManager;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.util.Identifier;
 import xyz.nucleoid.plasmid.api.game.GameType;
 
@@ -13,12 +27,43 @@ public class ConsoleBox implements ModInitializer {
 	public static final String MOD_ID = "consolebox";
 
 	private static final Identifier CONSOLE_BOX_ID = ConsoleBox.identifier("console_box");
+	private static final Identifier ARCADE_HALL_ID = ConsoleBox.identifier("arcade_hall");
+	private static final int MAINTENANCE_INTERVAL = 20 * 60;
+
 	public static final GameType<ConsoleBoxConfig> CONSOLE_BOX = GameType.register(CONSOLE_BOX_ID, ConsoleBoxConfig.CODEC, ConsoleBoxGame::open);
+	public static final GameType<ArcadeHallConfig> ARCADE_HALL = GameType.register(ARCADE_HALL_ID, ArcadeHallConfig.CODEC, ArcadeHall::open);
 
 	@Override
 	public void onInitialize() {
+		ConsoleBoxSettings.load();
+
 		ConsoleGameManager.register();
+		ConsoleBoxCommand.register();
 		PlayerDataApi.register(SaveHandler.Player.STORAGE);
+
+		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			ConsoleWorldPool.refill(server);
+			DisplayMirror.tick();
+
+			if (server.getTicks() % MAINTENANCE_INTERVAL == 0) {
+				ConsoleWarmPool.evictIdle();
+				ConsoleResourceTracker.checkLeaks();
+			}
+		});
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+			ConsoleDirectories.setWorld(server);
+			ConsoleHibernation.clear();
+			ConsoleWorkers.EXECUTOR.execute(ColorLookup::initialize);
+		});
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			ConsoleWorldPool.clear();
+			DisplayMirror.clear();
+		});
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+			ConsoleWarmPool.clear();
+			CartSaveStore.closeAll();
+			ConsoleDirectories.clearWorld();
+		});
 	}
 
 	public static Identifier identifier(String path) {
@@ -0,0 +1,68 @@
+package io.github.haykam821.consolebox;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+
+import io.github.haykam821.consolebox.game.runtime.EngineSettings;
+import net.fabricmc.loader.api.FabricLoader;
+
+/**
+ * Server-wide settings that apply to every console, read from {@code config/consolebox.json}.
+ */
+public record ConsoleBoxSettings(
+	EngineSettings engine,
+	int worldPoolSize
+) {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleBoxSettings");
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+	public static final ConsoleBoxSettings DEFAULT = new ConsoleBoxSettings(EngineSettings.DEFAULT, 2);
+
+	public static final Codec<ConsoleBoxSettings> CODEC = RecordCodecBuilder.create(instance -> {
+		return instance.group(
+			EngineSettings.CODEC.optionalFieldOf("engine", DEFAULT.engine()).forGetter(ConsoleBoxSettings::engine),
+			Codec.intRange(0, 64).optionalFieldOf("world_pool_size", DEFAULT.worldPoolSize()).forGetter(ConsoleBoxSettings::worldPoolSize)
+		).apply(instance, ConsoleBoxSettings::new);
+	});
+
+	private static ConsoleBoxSettings instance = DEFAULT;
+
+	public static ConsoleBoxSettings get() {
+		return instance;
+	}
+
+	/**
+	 * Reads the settings file, creating it with the default settings if it does not exist.
+	 */
+	public static void load() {
+		Path path = FabricLoader.getInstance().getConfigDir().resolve(ConsoleBox.MOD_ID + ".json");
+
+		try {
+			if (Files.exists(path)) {
+				try (BufferedReader reader = Files.newBufferedReader(path)) {
+					JsonElement json = JsonParser.parseReader(reader);
+					instance = CODEC.parse(JsonOps.INSTANCE, json).getOrThrow();
+				}
+			} else {
+				try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+					GSON.toJson(CODEC.encodeStart(JsonOps.INSTANCE, DEFAULT).getOrThrow(), writer);
+				}
+			}
+		} catch (Exception exception) {
+			LOGGER.error("Failed to load settings from '{}', using defaults", path, exception);
+		}
+	}
+}
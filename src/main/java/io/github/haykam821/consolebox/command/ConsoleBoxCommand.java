@@ -0,0 +1,232 @@
+package io.github.haykam821.consolebox.command;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+
+import io.github.haykam821.consolebox.game.CartSaveStore;
+import io.github.haykam821.consolebox.game.ConsoleBoxGame;
+import io.github.haykam821.consolebox.game.ConsoleInput;
+import io.github.haykam821.consolebox.game.ConsoleResourceTracker;
+import io.github.haykam821.consolebox.game.ConsoleSaveStates;
+import io.github.haykam821.consolebox.game.DisplayMirror;
+import io.github.haykam821.consolebox.game.runtime.ConsoleAdmission;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+
+public final class ConsoleBoxCommand {
+	private static final SimpleCommandExceptionType NOT_PLAYING_EXCEPTION = new SimpleCommandExceptionType(Text.translatable("command.consolebox.not_playing"));
+	private static final SimpleCommandExceptionType NOT_CONTROLLER_EXCEPTION = new SimpleCommandExceptionType(Text.translatable("command.consolebox.not_controller"));
+	private static final SimpleCommandExceptionType TARGET_NOT_PLAYING_EXCEPTION = new SimpleCommandExceptionType(Text.translatable("command.consolebox.watch.not_playing"));
+	private static final SimpleCommandExceptionType NOT_WATCHING_EXCEPTION = new SimpleCommandExceptionType(Text.translatable("command.consolebox.watch.not_watching"));
+	private static final SimpleCommandExceptionType STATE_UNAVAILABLE_EXCEPTION = new SimpleCommandExceptionType(Text.translatable("command.consolebox.state.unavailable"));
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleBoxCommand");
+
+	private ConsoleBoxCommand() {
+		return;
+	}
+
+	public static void register() {
+		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
+			ConsoleBoxCommand.register(dispatcher);
+		});
+	}
+
+	private static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		dispatcher.register(CommandManager.literal("consolebox")
+			.then(CommandManager.literal("stats")
+				.requires(source -> source.hasPermissionLevel(2))
+				.executes(ConsoleBoxCommand::executeStats))
+			.then(CommandManager.literal("saves")
+				.requires(source -> source.hasPermissionLevel(4))
+				.then(CommandManager.literal("compact")
+					.executes(ConsoleBoxCommand::executeCompactSaves)))
+			.then(CommandManager.literal("reset")
+				.executes(ConsoleBoxCommand::executeReset))
+			.then(CommandManager.literal("state")
+				.then(CommandManager.literal("save")
+					.executes(ConsoleBoxCommand::executeSaveState))
+				.then(CommandManager.literal("load")
+					.executes(ConsoleBoxCommand::executeLoadState)))
+			.then(CommandManager.literal("watch")
+				.then(CommandManager.argument("player", EntityArgumentType.player())
+					.executes(ConsoleBoxCommand::executeWatch)))
+			.then(CommandManager.literal("unwatch")
+				.executes(ConsoleBoxCommand::executeUnwatch))
+			.then(CommandManager.literal("turbo")
+				.executes(ConsoleBoxCommand::executeToggleTurbo)
+				.then(CommandManager.argument("multiplier", IntegerArgumentType.integer(1))
+					.executes(context -> {
+						return ConsoleBoxCommand.executeTurbo(context, IntegerArgumentType.getInteger(context, "multiplier"));
+					}))));
+	}
+
+	private static int executeStats(CommandContext<ServerCommandSource> context) {
+		ConsoleAdmission.Stats stats = ConsoleAdmission.getStats();
+
+		context.getSource().sendFeedback(() -> Text.translatable("command.consolebox.stats.admission", stats.running(), stats.limit(), stats.queued(), stats.averageWaitMillis(), stats.maxWaitMillis()), false);
+
+		ConsoleResourceTracker.Stats resources = ConsoleResourceTracker.getStats();
+		context.getSource().sendFeedback(() -> Text.translatable("command.consolebox.stats.resources", resources.consoles(), resources.nativeBytes() / 1024, resources.heapBytes() / 1024), false);
+
+		ConsoleInput.Stats input = ConsoleInput.getStats();
+		context.getSource().sendFeedback(() -> Text.translatable("command.consolebox.stats.input", input.applied(), input.averageAgeMicros(), input.maxAgeMicros(), input.coalesced(), input.contended()), false);
+
+		return stats.running();
+	}
+
+	private static int executeCompactSaves(CommandContext<ServerCommandSource> context) {
+		ServerCommandSource source = context.getSource();
+
+		// The save stores are compacted on a worker, so the result is reported once they have been
+		CartSaveStore.compactAll().whenCompleteAsync((result, throwable) -> {
+			if (throwable != null) {
+				LOGGER.error("Failed to compact cart save stores", throwable);
+				source.sendError(Text.translatable("command.consolebox.saves.compact.failed"));
+			} else {
+				source.sendFeedback(() -> Text.translatable("command.consolebox.saves.compact.success", result.files(), result.freedBytes() / 1024), true);
+			}
+		}, source.getServer());
+
+		return 1;
+	}
+
+	private static int executeReset(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		ServerCommandSource source = context.getSource();
+		ConsoleBoxGame game = ConsoleBoxCommand.getControlledGame(source);
+
+		// The cart is restarted by its console thread, so the result is reported once it has been
+		game.reset().whenCompleteAsync((reset, throwable) -> {
+			if (throwable == null && reset) {
+				source.sendFeedback(() -> Text.translatable("command.consolebox.reset.success"), false);
+			} else {
+				source.sendError(Text.translatable("command.consolebox.reset.unavailable"));
+			}
+		}, source.getServer());
+
+		return 1;
+	}
+
+	private static int executeSaveState(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		ServerCommandSource source = context.getSource();
+		ServerPlayerEntity player = source.getPlayerOrThrow();
+		ConsoleBoxGame game = ConsoleBoxCommand.getControlledGame(source);
+
+		// The console thread only copies the cart's memory; compression and writing happen on a worker
+		game.saveState().thenCompose(snapshot -> {
+			if (snapshot == null) {
+				return CompletableFuture.completedFuture(false);
+			}
+
+			return ConsoleSaveStates.write(player.getUuid(), game.getCart(), snapshot).thenApply(result -> true);
+		}).whenCompleteAsync((saved, throwable) -> {
+			if (throwable != null) {
+				LOGGER.error("Failed to write save state of '{}' for {}", game.getCart(), player.getNameForScoreboard(), throwable);
+				source.sendError(Text.translatable("command.consolebox.state.save.failed"));
+			} else if (!saved) {
+				source.sendError(Text.translatable("command.consolebox.state.unavailable"));
+			} else {
+				source.sendFeedback(() -> Text.translatable("command.consolebox.state.save.success"), false);
+			}
+		}, source.getServer());
+
+		return 1;
+	}
+
+	private static int executeLoadState(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		ServerCommandSource source = context.getSource();
+		ServerPlayerEntity player = source.getPlayerOrThrow();
+		ConsoleBoxGame game = ConsoleBoxCommand.getControlledGame(source);
+
+		int globalCount = game.getCanvas().getGlobalCount();
+		if (globalCount < 0) {
+			throw STATE_UNAVAILABLE_EXCEPTION.create();
+		}
+
+		ConsoleSaveStates.read(player.getUuid(), game.getCart(), globalCount).whenCompleteAsync((snapshot, throwable) -> {
+			if (throwable != null) {
+				LOGGER.error("Failed to read save state of '{}' for {}", game.getCart(), player.getNameForScoreboard(), throwable);
+				source.sendError(Text.translatable("command.consolebox.state.load.failed"));
+			} else if (snapshot.isEmpty()) {
+				source.sendError(Text.translatable("command.consolebox.state.load.missing"));
+			} else if (!snapshot.get().cart().equals(game.getCanvas().getCartEntry().hash())) {
+				source.sendError(Text.translatable("command.consolebox.state.load.mismatch"));
+			} else {
+				game.loadState(snapshot.get()).whenCompleteAsync((loaded, loadThrowable) -> {
+					if (loadThrowable == null && loaded) {
+						source.sendFeedback(() -> Text.translatable("command.consolebox.state.load.success"), false);
+					} else {
+						source.sendError(Text.translatable("command.consolebox.state.unavailable"));
+					}
+				}, source.getServer());
+			}
+		}, source.getServer());
+
+		return 1;
+	}
+
+	private static int executeWatch(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		ServerPlayerEntity viewer = context.getSource().getPlayerOrThrow();
+		ServerPlayerEntity target = EntityArgumentType.getPlayer(context, "player");
+
+		ConsoleBoxGame game = ConsoleBoxGame.byPlayer(target);
+		if (game == null) {
+			throw TARGET_NOT_PLAYING_EXCEPTION.create();
+		}
+
+		DisplayMirror.watch(viewer, game);
+
+		context.getSource().sendFeedback(() -> Text.translatable("command.consolebox.watch.success", target.getDisplayName()), false);
+		return 1;
+	}
+
+	private static int executeUnwatch(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		if (!DisplayMirror.stop(context.getSource().getPlayerOrThrow())) {
+			throw NOT_WATCHING_EXCEPTION.create();
+		}
+
+		context.getSource().sendFeedback(() -> Text.translatable("command.consolebox.watch.stop"), false);
+		return 1;
+	}
+
+	private static int executeToggleTurbo(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		ConsoleBoxGame game = ConsoleBoxCommand.getControlledGame(context.getSource());
+		return ConsoleBoxCommand.executeTurbo(context, game.getTurboMultiplier() > 1 ? 1 : game.getMaxTurboMultiplier());
+	}
+
+	private static int executeTurbo(CommandContext<ServerCommandSource> context, int multiplier) throws CommandSyntaxException {
+		ConsoleBoxGame game = ConsoleBoxCommand.getControlledGame(context.getSource());
+		int applied = game.setTurboMultiplier(multiplier);
+
+		context.getSource().sendFeedback(() -> Text.translatable("text.consolebox.turbo", applied), false);
+		return applied;
+	}
+
+	/**
+	 * Gets the console game of the command source, which must be its controlling player or an operator.
+	 */
+	private static ConsoleBoxGame getControlledGame(ServerCommandSource source) throws CommandSyntaxException {
+		ServerPlayerEntity player = source.getPlayerOrThrow();
+		ConsoleBoxGame game = ConsoleBoxGame.byPlayer(player);
+
+		if (game == null) {
+			throw NOT_PLAYING_EXCEPTION.create();
+		} else if (!game.isController(player) && !source.hasPermissionLevel(2)) {
+			throw NOT_CONTROLLER_EXCEPTION.create();
+		}
+
+		return game;
+	}
+}
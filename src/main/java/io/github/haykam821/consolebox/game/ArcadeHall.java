@@ -0,0 +1,166 @@
+package io.github.haykam821.consolebox.game;
+
+import net.minecraft.entity.damage.DamageSource;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.server.network.ServerPlayerEntity;
+import xyz.nucleoid.plasmid.api.game.GameCloseReason;
+import xyz.nucleoid.plasmid.api.game.GameOpenContext;
+import xyz.nucleoid.plasmid.api.game.GameOpenProcedure;
+import xyz.nucleoid.plasmid.api.game.common.PlayerLimiter;
+import xyz.nucleoid.plasmid.api.game.common.config.PlayerLimiterConfig;
+import xyz.nucleoid.plasmid.api.game.event.GameActivityEvents;
+import xyz.nucleoid.plasmid.api.game.event.GamePlayerEvents;
+import xyz.nucleoid.plasmid.api.game.player.JoinAcceptor;
+import xyz.nucleoid.plasmid.api.game.player.JoinAcceptorResult;
+import xyz.nucleoid.stimuli.event.EventResult;
+import xyz.nucleoid.stimuli.event.player.PlayerC2SPacketEvent;
+import xyz.nucleoid.stimuli.event.player.PlayerDamageEvent;
+import xyz.nucleoid.stimuli.event.player.PlayerDeathEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several console cabinets in a single world and game space, so that players can walk between them.
+ *
+ * <p>Every player sees every cabinet, but only the players in a cabinet's slots control it and look through its camera.
+ * When the controller of a cabinet leaves, the cabinet is freed for the next player instead of closing the hall.
+ */
+public class ArcadeHall implements GamePlayerEvents.Add, GameActivityEvents.Destroy, GameActivityEvents.Tick, GameActivityEvents.Enable, GamePlayerEvents.Remove, GamePlayerEvents.Accept, PlayerDamageEvent, PlayerDeathEvent, PlayerC2SPacketEvent {
+    private final List<ConsoleBoxGame> cabinets;
+
+    public ArcadeHall(List<ConsoleBoxGame> cabinets) {
+        this.cabinets = cabinets;
+    }
+
+    public static GameOpenProcedure open(GameOpenContext<ArcadeHallConfig> context) {
+        List<ArcadeHallConfig.Cabinet> configs = context.config().cabinets();
+        List<ConsoleBoxGame.Reservation> reservations = new ArrayList<>(configs.size());
+
+        try {
+            for (ArcadeHallConfig.Cabinet config : configs) {
+                reservations.add(ConsoleBoxGame.reserve(config.console()));
+            }
+        } catch (Throwable e) {
+            // A hall opens with all of its cabinets or not at all
+            for (ConsoleBoxGame.Reservation reservation : reservations) {
+                reservation.release();
+            }
+            throw e;
+        }
+
+        return context.openWithWorld(ConsoleBoxGame.createWorldConfig(context.server()), (activity, world) -> {
+            List<ConsoleBoxGame> cabinets = new ArrayList<>(configs.size());
+
+            for (int index = 0; index < configs.size(); index++) {
+                ArcadeHallConfig.Cabinet config = configs.get(index);
+                cabinets.add(ConsoleBoxGame.create(activity, world, config.console(), reservations.get(index), null, config.getOffset(index), false));
+            }
+
+            ArcadeHall phase = new ArcadeHall(cabinets);
+
+            ConsoleBoxGame.setRules(activity);
+            PlayerLimiter.addTo(activity, new PlayerLimiterConfig(phase.getCapacity()));
+
+            // Listeners
+            activity.listen(GamePlayerEvents.ADD, phase);
+            activity.listen(GameActivityEvents.ENABLE, phase);
+            activity.listen(GameActivityEvents.DESTROY, phase);
+            activity.listen(GameActivityEvents.TICK, phase);
+            activity.listen(GamePlayerEvents.ACCEPT, phase);
+            activity.listen(PlayerDamageEvent.EVENT, phase);
+            activity.listen(PlayerDeathEvent.EVENT, phase);
+            activity.listen(GamePlayerEvents.REMOVE, phase);
+            activity.listen(PlayerC2SPacketEvent.EVENT, phase);
+        });
+    }
+
+    private int getCapacity() {
+        int capacity = 0;
+
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            capacity += cabinet.getFreeSlots();
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Finds the cabinet that a joining player should be placed at, preferring cabinets without a controller.
+     */
+    private ConsoleBoxGame selectCabinet() {
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            if (cabinet.isControllerFree()) {
+                return cabinet;
+            }
+        }
+
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            if (cabinet.getFreeSlots() > 0) {
+                return cabinet;
+            }
+        }
+
+        return this.cabinets.get(0);
+    }
+
+    // Listeners
+    @Override
+    public JoinAcceptorResult onAcceptPlayers(JoinAcceptor acceptor) {
+        return this.selectCabinet().onAcceptPlayers(acceptor);
+    }
+
+    @Override
+    public void onAddPlayer(ServerPlayerEntity player) {
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            cabinet.onAddPlayer(player);
+        }
+    }
+
+    @Override
+    public void onRemovePlayer(ServerPlayerEntity player) {
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            cabinet.onRemovePlayer(player);
+        }
+    }
+
+    @Override
+    public EventResult onPacket(ServerPlayerEntity player, Packet<?> packet) {
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            if (cabinet.hasPlayer(player)) {
+                return cabinet.onPacket(player, packet);
+            }
+        }
+
+        return EventResult.PASS;
+    }
+
+    @Override
+    public void onTick() {
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            cabinet.onTick();
+        }
+    }
+
+    @Override
+    public void onEnable() {
+
+    }
+
+    @Override
+    public void onDestroy(GameCloseReason reason) {
+        for (ConsoleBoxGame cabinet : this.cabinets) {
+            cabinet.onDestroy(reason);
+        }
+    }
+
+    @Override
+    public EventResult onDamage(ServerPlayerEntity player, DamageSource source, float damage) {
+        return EventResult.DENY;
+    }
+
+    @Override
+    public EventResult onDeath(ServerPlayerEntity player, DamageSource source) {
+        return EventResult.DENY;
+    }
+}
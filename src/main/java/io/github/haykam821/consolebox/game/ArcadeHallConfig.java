@@ -0,0 +1,65 @@
+package io.github.haykam821.consolebox.game;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.MapCodec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+
+import net.minecraft.util.dynamic.Codecs;
+import net.minecraft.util.math.BlockPos;
+
+public record ArcadeHallConfig(
+	List<Cabinet> cabinets
+) {
+	/**
+	 * The distance along the X axis between cabinets without an explicit offset, which leaves a gap between their displays.
+	 */
+	private static final int CABINET_SPACING = 12;
+
+	public static final MapCodec<ArcadeHallConfig> CODEC = RecordCodecBuilder.mapCodec(instance -> {
+		return instance.group(
+			Codecs.nonEmptyList(Cabinet.CODEC.listOf()).fieldOf("cabinets").forGetter(ArcadeHallConfig::cabinets)
+		).apply(instance, ArcadeHallConfig::new);
+	}).validate(ArcadeHallConfig::validate);
+
+	/**
+	 * Rejects cabinets that would share a save by running the same cart with the same cabinet ID.
+	 */
+	private static DataResult<ArcadeHallConfig> validate(ArcadeHallConfig config) {
+		Set<String> keys = new HashSet<>();
+
+		for (Cabinet cabinet : config.cabinets()) {
+			ConsoleBoxConfig console = cabinet.console();
+
+			if (console.usesCabinetSaves() && !keys.add(console.game() + "/" + console.cabinetId().orElseThrow())) {
+				return DataResult.error(() -> "Duplicate cabinet_id '" + console.cabinetId().orElseThrow() + "' for " + console.game());
+			}
+		}
+
+		return DataResult.success(config);
+	}
+
+	public record Cabinet(
+		ConsoleBoxConfig console,
+		Optional<BlockPos> offset
+	) {
+		public static final Codec<Cabinet> CODEC = RecordCodecBuilder.create(instance -> {
+			return instance.group(
+				ConsoleBoxConfig.CODEC.forGetter(Cabinet::console),
+				BlockPos.CODEC.optionalFieldOf("offset").forGetter(Cabinet::offset)
+			).apply(instance, Cabinet::new);
+		});
+
+		/**
+		 * @return the configured offset of this cabinet, or a position in a row based on its index
+		 */
+		public BlockPos getOffset(int index) {
+			return this.offset.orElseGet(() -> new BlockPos(index * CABINET_SPACING, 0, 0));
+		}
+	}
+}
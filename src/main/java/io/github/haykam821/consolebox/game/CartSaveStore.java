@@ -0,0 +1,529 @@
+package io.github.haykam821.consolebox.game;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
+import net.minecraft.util.Identifier;
+
+/**
+ * A file of fixed-size save records for a single cart, read and written in place and keyed by player or cabinet.
+ *
+ * <p>Each record holds two copies of its contents, and a write replaces the older copy. The copy being written is marked as
+ * incomplete until its contents and checksum have reached the disk, so a crash in the middle of a write leaves the other copy intact.
+ * Deleted records leave free space behind, which {@link #compact()} reclaims.
+ *
+ * <p>Writes, deletions and compactions are queued and run one after another on a worker, and reads wait for the queued work of their store.
+ * Stores are kept in the directory of the world that is being played.
+ */
+public final class CartSaveStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger("CartSaveStore");
+
+	private static final String DIRECTORY = "saves";
+	private static final String EXTENSION = ".bin";
+	private static final Map<Path, CartSaveStore> STORES = new HashMap<>();
+
+	private static final int MAGIC = 0x43425356;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	private static final int COPY_SEQUENCE = 0;
+	private static final int COPY_LENGTH = 8;
+	private static final int COPY_CHECKSUM = 12;
+	private static final int COPY_CONTENTS = 16;
+	private static final int COPY_SIZE = COPY_CONTENTS + SaveSlot.SIZE;
+
+	private static final int RECORD_COPIES = 16;
+	private static final int RECORD_SIZE = RECORD_COPIES + COPY_SIZE * 2;
+
+	private final Path path;
+	private final Map<UUID, Integer> records = new HashMap<>();
+	private final BitSet occupied = new BitSet();
+
+	/**
+	 * Holds the copy that was read last, which is only used while the lock of this store is held.
+	 */
+	private final ByteBuffer copyBuffer = ByteBuffer.allocate(COPY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	private FileChannel channel;
+
+	private CompletableFuture<Void> pendingWrites = CompletableFuture.completedFuture(null);
+
+	private CartSaveStore(Path path) throws IOException {
+		this.path = path;
+		this.open();
+	}
+
+	/**
+	 * @return the save store of the given cart, which is opened if it is not already
+	 */
+	public static synchronized CartSaveStore get(Identifier game) throws IOException {
+		return CartSaveStore.get(ConsoleDirectories.resolve(DIRECTORY).resolve(game.getNamespace()).resolve(game.getPath() + EXTENSION));
+	}
+
+	private static synchronized CartSaveStore get(Path path) throws IOException {
+		CartSaveStore store = STORES.get(path);
+
+		if (store == null) {
+			Files.createDirectories(path.getParent());
+
+			store = new CartSaveStore(path);
+			STORES.put(path, store);
+		}
+
+		return store;
+	}
+
+	/**
+	 * Compacts the save store of every cart that has one on a worker, after the writes that are queued for each store.
+	 */
+	public static CompletableFuture<CompactionResult> compactAll() {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				Path directory = ConsoleDirectories.resolve(DIRECTORY);
+				if (!Files.isDirectory(directory)) {
+					return List.<CartSaveStore>of();
+				}
+
+				List<CartSaveStore> stores = new ArrayList<>();
+				try (Stream<Path> stream = Files.walk(directory)) {
+					for (Path path : stream.filter(path -> path.toString().endsWith(EXTENSION) && Files.isRegularFile(path)).toList()) {
+						stores.add(CartSaveStore.get(path));
+					}
+				}
+
+				return stores;
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, ConsoleWorkers.EXECUTOR).thenCompose(stores -> {
+			List<CompletableFuture<Long>> compactions = stores.stream().map(CartSaveStore::compact).toList();
+
+			return CompletableFuture.allOf(compactions.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+				long freedBytes = 0;
+				for (CompletableFuture<Long> compaction : compactions) {
+					freedBytes += compaction.join();
+				}
+
+				return new CompactionResult(compactions.size(), freedBytes);
+			});
+		});
+	}
+
+	/**
+	 * Closes every save store once its queued writes are complete.
+	 */
+	public static synchronized void closeAll() {
+		for (CartSaveStore store : STORES.values()) {
+			store.awaitWrites();
+
+			synchronized (store) {
+				try {
+					store.close();
+				} catch (IOException exception) {
+					LOGGER.warn("Failed to close cart save store '{}'", store.path, exception);
+				}
+			}
+		}
+
+		STORES.clear();
+	}
+
+	private void open() throws IOException {
+		this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long size = this.channel.size();
+
+		if (size < HEADER_SIZE) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(0, MAGIC);
+			header.putInt(4, VERSION);
+
+			this.writeFully(header, 0);
+			this.channel.force(false);
+		} else {
+			ByteBuffer header = this.readFully(ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN), 0);
+
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				this.channel.close();
+				throw new IOException("Unsupported cart save store '" + this.path + "'");
+			}
+		}
+
+		// A record that was only partly appended when the server stopped is left out, and overwritten by the next one
+		int capacity = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+		ByteBuffer key = ByteBuffer.allocate(Long.BYTES * 2).order(ByteOrder.LITTLE_ENDIAN);
+
+		for (int index = 0; index < capacity; index++) {
+			this.readFully(key.clear(), CartSaveStore.getRecordOffset(index));
+
+			long mostSignificantBits = key.getLong(0);
+			long leastSignificantBits = key.getLong(Long.BYTES);
+
+			if (mostSignificantBits != 0 || leastSignificantBits != 0) {
+				this.records.put(new UUID(mostSignificantBits, leastSignificantBits), index);
+				this.occupied.set(index);
+			}
+		}
+	}
+
+	/**
+	 * Fills the remainder of a buffer with the bytes at the given position of the file.
+	 *
+	 * @return the given buffer, rewound
+	 */
+	private ByteBuffer readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (this.channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of cart save store '" + this.path + "'");
+			}
+		}
+
+		return buffer.rewind();
+	}
+
+	/**
+	 * Writes the remainder of a buffer, whose position is relative to the given position of the file.
+	 */
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	private void writeLong(long position, long value) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putLong(0, value);
+
+		this.writeFully(buffer, position);
+	}
+
+	private static long getRecordOffset(int index) {
+		return HEADER_SIZE + (long) index * RECORD_SIZE;
+	}
+
+	private static long getCopyOffset(int index, int copy) {
+		return CartSaveStore.getRecordOffset(index) + RECORD_COPIES + (long) copy * COPY_SIZE;
+	}
+
+	private static int checksum(ByteBuffer copy, int length) {
+		CRC32C checksum = new CRC32C();
+
+		checksum.update(copy.slice(COPY_LENGTH, Integer.BYTES));
+		checksum.update(copy.slice(COPY_CONTENTS, length));
+
+		return (int) checksum.getValue();
+	}
+
+	/**
+	 * Reads a copy of a record into the copy buffer.
+	 *
+	 * @return the sequence of the copy, or {@code 0} if it is incomplete
+	 */
+	private long readCopy(long offset) throws IOException {
+		ByteBuffer copy = this.readFully(this.copyBuffer.clear(), offset);
+
+		long sequence = copy.getLong(COPY_SEQUENCE);
+		if (sequence == 0) {
+			return 0;
+		}
+
+		int length = copy.getInt(COPY_LENGTH);
+		if (length < 0 || length > SaveSlot.SIZE || CartSaveStore.checksum(copy, length) != copy.getInt(COPY_CHECKSUM)) {
+			return 0;
+		}
+
+		return sequence;
+	}
+
+	/**
+	 * Reads the complete copy of a record that was written last into the copy buffer.
+	 *
+	 * @return the offset of the copy, or {@code -1} if neither copy is complete
+	 */
+	private long readLatestCopy(int index) throws IOException {
+		long latest = -1;
+		long latestSequence = 0;
+
+		for (int copy = 0; copy < 2; copy++) {
+			long offset = CartSaveStore.getCopyOffset(index, copy);
+			long sequence = this.readCopy(offset);
+
+			if (sequence > latestSequence) {
+				latest = offset;
+				latestSequence = sequence;
+			}
+		}
+
+		// The copy buffer holds the second copy, which may not be the latest
+		if (latest != -1 && latest != CartSaveStore.getCopyOffset(index, 1)) {
+			this.readCopy(latest);
+		}
+
+		return latest;
+	}
+
+	/**
+	 * Reads the latest contents of a record, waiting for any queued writes to complete first.
+	 */
+	@Nullable
+	public ByteBuffer read(UUID key) throws IOException {
+		this.awaitWrites();
+		return this.readRecord(key);
+	}
+
+	/**
+	 * Reads the latest contents of a record on a worker once the queued writes are complete, without blocking a worker until then.
+	 */
+	public CompletableFuture<ByteBuffer> load(UUID key) {
+		CompletableFuture<Void> pendingWrites;
+
+		synchronized (this) {
+			pendingWrites = this.pendingWrites;
+		}
+
+		return pendingWrites.thenApplyAsync(ignored -> {
+			try {
+				return this.readRecord(key);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, ConsoleWorkers.EXECUTOR);
+	}
+
+	@Nullable
+	private synchronized ByteBuffer readRecord(UUID key) throws IOException {
+		Integer index = this.records.get(key);
+		if (index == null) {
+			return null;
+		}
+
+		if (this.readLatestCopy(index) == -1) {
+			return null;
+		}
+
+		byte[] contents = new byte[this.copyBuffer.getInt(COPY_LENGTH)];
+		this.copyBuffer.get(COPY_CONTENTS, contents);
+
+		return ByteBuffer.wrap(contents);
+	}
+
+	/**
+	 * Queues a write of a record, which keeps the given buffer until it is written.
+	 */
+	public void queueWrite(UUID key, ByteBuffer data) {
+		this.queue(() -> this.write(key, data), "write", key);
+	}
+
+	/**
+	 * Queues a deletion of a record.
+	 */
+	public void queueDelete(UUID key) {
+		this.queue(() -> this.delete(key), "delete", key);
+	}
+
+	private synchronized void queue(Operation operation, String name, UUID key) {
+		this.pendingWrites = this.pendingWrites.thenRunAsync(() -> {
+			try {
+				operation.run();
+			} catch (IOException | RuntimeException exception) {
+				LOGGER.error("Failed to {} save of {} in cart save store '{}'", name, key, this.path, exception);
+			}
+		}, ConsoleWorkers.EXECUTOR);
+	}
+
+	private void awaitWrites() {
+		CompletableFuture<Void> pendingWrites;
+
+		synchronized (this) {
+			pendingWrites = this.pendingWrites;
+		}
+
+		pendingWrites.join();
+	}
+
+	private synchronized void write(UUID key, ByteBuffer data) throws IOException {
+		int length = Math.min(data.remaining(), SaveSlot.SIZE);
+
+		Integer index = this.records.get(key);
+		if (index == null) {
+			index = this.allocate(key);
+		}
+
+		long latest = this.readLatestCopy(index);
+		long sequence = latest == -1 ? 1 : this.copyBuffer.getLong(COPY_SEQUENCE) + 1;
+		long copy = latest == CartSaveStore.getCopyOffset(index, 0) ? CartSaveStore.getCopyOffset(index, 1) : CartSaveStore.getCopyOffset(index, 0);
+
+		// The copy is incomplete until its sequence is written, which only happens once the rest of it is on disk
+		this.writeLong(copy + COPY_SEQUENCE, 0);
+		this.channel.force(false);
+
+		ByteBuffer contents = this.copyBuffer.clear();
+		contents.put(COPY_CONTENTS, data, data.position(), length);
+		contents.putInt(COPY_LENGTH, length);
+		contents.putInt(COPY_CHECKSUM, CartSaveStore.checksum(contents, length));
+
+		this.writeFully(contents.limit(COPY_CONTENTS + length).position(COPY_LENGTH), copy);
+		this.channel.force(false);
+
+		this.writeLong(copy + COPY_SEQUENCE, sequence);
+		this.channel.force(false);
+	}
+
+	private synchronized void delete(UUID key) throws IOException {
+		Integer index = this.records.remove(key);
+		if (index == null) {
+			return;
+		}
+
+		this.clearRecord(index);
+	}
+
+	private int allocate(UUID key) throws IOException {
+		int index = this.occupied.nextClearBit(0);
+
+		// Both copies start out incomplete
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		record.putLong(0, key.getMostSignificantBits());
+		record.putLong(Long.BYTES, key.getLeastSignificantBits());
+
+		// The file may have grown, so its size is forced as well
+		this.writeFully(record, CartSaveStore.getRecordOffset(index));
+		this.channel.force(true);
+
+		this.records.put(key, index);
+		this.occupied.set(index);
+
+		return index;
+	}
+
+	private void clearRecord(int index) throws IOException {
+		long offset = CartSaveStore.getRecordOffset(index);
+
+		// Copies are cleared before the key so that a crash never leaves them attached to a free record
+		this.writeLong(CartSaveStore.getCopyOffset(index, 0) + COPY_SEQUENCE, 0);
+		this.writeLong(CartSaveStore.getCopyOffset(index, 1) + COPY_SEQUENCE, 0);
+		this.channel.force(false);
+
+		this.writeFully(ByteBuffer.allocate(Long.BYTES * 2), offset);
+		this.channel.force(false);
+
+		this.occupied.clear(index);
+	}
+
+	/**
+	 * Queues a rewrite of this store with only the latest copy of each record, which replaces the file once the new one is complete.
+	 *
+	 * @return the number of bytes freed
+	 */
+	public synchronized CompletableFuture<Long> compact() {
+		CompletableFuture<Long> compaction = this.pendingWrites.thenApplyAsync(ignored -> {
+			try {
+				return this.compactRecords();
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, ConsoleWorkers.EXECUTOR);
+
+		// A failed compaction leaves the previous file in place, so later writes can still go ahead
+		this.pendingWrites = compaction.handle((freedBytes, throwable) -> null);
+		return compaction;
+	}
+
+	private synchronized long compactRecords() throws IOException {
+		List<UUID> keys = new ArrayList<>(this.records.keySet());
+		long previousSize = this.channel.size();
+
+		Path compactedPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+		int count = 0;
+
+		try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(0, MAGIC);
+			header.putInt(4, VERSION);
+
+			CartSaveStore.writeFully(compacted, header, 0);
+
+			ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			for (UUID key : keys) {
+				if (this.readLatestCopy(this.records.get(key)) == -1) {
+					continue;
+				}
+
+				Arrays.fill(record.array(), (byte) 0);
+				record.putLong(0, key.getMostSignificantBits());
+				record.putLong(Long.BYTES, key.getLeastSignificantBits());
+
+				// The complete copy keeps its checksum, which does not cover the sequence
+				record.put(RECORD_COPIES, this.copyBuffer, 0, COPY_SIZE);
+				record.putLong(RECORD_COPIES + COPY_SEQUENCE, 1);
+
+				CartSaveStore.writeFully(compacted, record.clear(), CartSaveStore.getRecordOffset(count));
+				count += 1;
+			}
+
+			compacted.force(true);
+		}
+
+		this.close();
+
+		try {
+			Files.move(compactedPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			// Reopens the previous file if it could not be replaced
+			this.records.clear();
+			this.occupied.clear();
+			this.open();
+		}
+
+		return Math.max(0, previousSize - CartSaveStore.getRecordOffset(count));
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	/**
+	 * Closes the file, so that it can be replaced or deleted.
+	 */
+	private void close() throws IOException {
+		this.channel.force(true);
+		this.channel.close();
+	}
+
+	@FunctionalInterface
+	private interface Operation {
+		void run() throws IOException;
+	}
+
+	/**
+	 * @param files the number of save stores that were compacted
+	 * @param freedBytes the total number of bytes freed
+	 */
+	public record CompactionResult(int files, long freedBytes) {
+	}
+}
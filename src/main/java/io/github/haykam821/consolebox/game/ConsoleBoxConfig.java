@@ -1,11 +1,18 @@
 package io.github.haykam821.consolebox.game;
 
+import java.util.Optional;
+
 import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 
+import io.github.haykam821.consolebox.ConsoleBoxSettings;
+import io.github.haykam821.consolebox.game.runtime.EngineSettings;
+import io.github.haykam821.consolebox.resource.CartEntry;
 import io.github.haykam821.consolebox.resource.ConsoleGameManager;
 import net.minecraft.text.Text;
+import net.minecraft.util.StringIdentifiable;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.dynamic.Codecs;
 import net.minecraft.util.math.Vec3d;
@@ -16,7 +23,14 @@ public record ConsoleBoxConfig(
 	Vec3d spectatorSpawnOffset,
 	int playerCount,
 	boolean swapXZ,
-	boolean save
+	boolean save,
+	SaveStore saveStore,
+	Optional<String> cabinetId,
+	int idleTimeout,
+	int maxTurboMultiplier,
+	int warmPoolSize,
+	int hibernateAfter,
+	Optional<EngineSettings> engine
 ) {
 	private static final Vec3d DEFAULT_SPECTATOR_SPAWN_OFFSET = new Vec3d(0, 2, 0);
 
@@ -26,17 +40,77 @@ public record ConsoleBoxConfig(
 			Codecs.VECTOR_3F.xmap(Vec3d::new, Vec3d::toVector3f).optionalFieldOf("spectator_spawn_offset", DEFAULT_SPECTATOR_SPAWN_OFFSET).forGetter(ConsoleBoxConfig::spectatorSpawnOffset),
 			Codec.intRange(1, 4).optionalFieldOf("players", 1).forGetter(ConsoleBoxConfig::playerCount),
 			Codec.BOOL.optionalFieldOf("swap_x_z", false).forGetter(ConsoleBoxConfig::swapXZ),
-			Codec.BOOL.optionalFieldOf("save", false).forGetter(ConsoleBoxConfig::save)
+			Codec.BOOL.optionalFieldOf("save", false).forGetter(ConsoleBoxConfig::save),
+			SaveStore.CODEC.optionalFieldOf("save_store", SaveStore.PLAYER_DATA).forGetter(ConsoleBoxConfig::saveStore),
+			Codecs.NON_EMPTY_STRING.optionalFieldOf("cabinet_id").forGetter(ConsoleBoxConfig::cabinetId),
+			Codecs.NON_NEGATIVE_INT.optionalFieldOf("idle_timeout", 60).forGetter(ConsoleBoxConfig::idleTimeout),
+			Codec.intRange(1, 16).optionalFieldOf("max_turbo_multiplier", 4).forGetter(ConsoleBoxConfig::maxTurboMultiplier),
+			Codec.intRange(0, 16).optionalFieldOf("warm_pool_size", 0).forGetter(ConsoleBoxConfig::warmPoolSize),
+			Codecs.NON_NEGATIVE_INT.optionalFieldOf("hibernate_after", 0).forGetter(ConsoleBoxConfig::hibernateAfter),
+			EngineSettings.CODEC.optionalFieldOf("engine").forGetter(ConsoleBoxConfig::engine)
 		).apply(instance, ConsoleBoxConfig::new);
-	});
+	}).validate(ConsoleBoxConfig::validate);
+
+	private static DataResult<ConsoleBoxConfig> validate(ConsoleBoxConfig config) {
+		if (config.usesCabinetSaves() && config.cabinetId().isEmpty()) {
+			return DataResult.error(() -> "A cabinet_id is required to store saves per cabinet");
+		}
+
+		return DataResult.success(config);
+	}
+
+	/**
+	 * @return whether this console saves to its cart's save store under its cabinet ID
+	 */
+	public boolean usesCabinetSaves() {
+		return this.save && this.saveStore == SaveStore.CABINET;
+	}
+
+	/**
+	 * @return the engine settings of this console, or the server-wide engine settings if none are configured
+	 */
+	public EngineSettings getEngineSettings() {
+		return this.engine.orElseGet(() -> ConsoleBoxSettings.get().engine());
+	}
 
-	public byte[] getGameData() throws GameOpenException {
-		byte[] data = ConsoleGameManager.getGameData(this.game);
+	public CartEntry getCartEntry() throws GameOpenException {
+		CartEntry entry = ConsoleGameManager.getEntry(this.game);
 
-		if (data == null) {
+		if (entry == null) {
 			throw new GameOpenException(Text.translatable("text.consolebox.nonexistent_console_game", this.game));
 		} else {
-			return data;
+			return entry;
+		}
+	}
+
+	/**
+	 * Where the persistent storage of a cart is saved when saving is enabled.
+	 */
+	public enum SaveStore implements StringIdentifiable {
+		/**
+		 * Saves with the data of the controlling player.
+		 */
+		PLAYER_DATA("player_data"),
+		/**
+		 * Saves to the cart's save store, keyed by the controlling player.
+		 */
+		PLAYER("player"),
+		/**
+		 * Saves to the cart's save store, keyed by the configured cabinet ID, so that every player of the cabinet shares the save.
+		 */
+		CABINET("cabinet");
+
+		public static final Codec<SaveStore> CODEC = StringIdentifiable.createCodec(SaveStore::values);
+
+		private final String name;
+
+		private SaveStore(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String asString() {
+			return this.name;
 		}
 	}
 }
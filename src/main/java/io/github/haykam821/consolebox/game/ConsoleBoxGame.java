@@ -1,7 +1,9 @@
 package io.github.haykam821.consolebox.game;
 
 import eu.pb4.mapcanvas.api.utils.VirtualDisplay;
-import io.github.haykam821.consolebox.game.audio.BaseAudioController;
+import io.github.haykam821.consolebox.game.runtime.ConsoleAdmission;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWatchdog;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.SpawnReason;
@@ -15,13 +17,21 @@ import net.minecraft.network.packet.Packet;
 import net.minecraft.network.packet.c2s.play.*;
 import net.minecraft.network.packet.s2c.play.*;
 import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.PlayerInput;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.GameMode;
+import net.minecraft.world.GameRules;
 import net.minecraft.world.dimension.DimensionTypes;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import xyz.nucleoid.fantasy.RuntimeWorldConfig;
 import xyz.nucleoid.fantasy.util.VoidChunkGenerator;
 import xyz.nucleoid.plasmid.api.game.*;
@@ -37,33 +47,90 @@ import xyz.nucleoid.stimuli.event.player.PlayerC2SPacketEvent;
 import xyz.nucleoid.stimuli.event.player.PlayerDamageEvent;
 import xyz.nucleoid.stimuli.event.player.PlayerDeathEvent;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.Destroy, GameActivityEvents.Tick, GameActivityEvents.Enable, GamePlayerEvents.Remove, GamePlayerEvents.Accept, PlayerDamageEvent, PlayerDeathEvent, PlayerC2SPacketEvent {
-    private final Thread thread;
+    private static final long FRAME_TIME = 1000 / 60;
+    /**
+     * The frame time used once a console is idle, which also limits how often map updates are sent.
+     */
+    private static final long IDLE_FRAME_TIME = 1000 / 4;
+    private static final long QUEUE_REFRESH_TIME = 1000;
+    /**
+     * How long the console thread may take to exit after the game closes before a warning is logged.
+     */
+    private static final long TEARDOWN_TIME = ConsoleWatchdog.UPDATE_DEADLINE_MILLIS + FRAME_TIME;
+    private static final long WORLD_TIME = 6000;
+    /**
+     * How often, in ticks, changes to a cart's persistent storage are written to its save handler.
+     */
+    private static final int SAVE_FLUSH_INTERVAL = 20 * 5;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleBoxGame");
+
+    private static final List<ConsoleBoxGame> GAMES = new ArrayList<>();
+
+    private volatile Thread thread;
+    /**
+     * Completed by the current console thread once it has exited.
+     */
+    private volatile CompletableFuture<Void> threadExit;
+    private final AtomicReference<ThreadState> threadState = new AtomicReference<>(ThreadState.RUNNING);
     private final GameSpace gameSpace;
     private final ServerWorld world;
     private final ConsoleBoxConfig config;
+    private final Vec3d spawnPos;
+    private final boolean standalone;
     private final GameCanvas canvas;
     private final VirtualDisplay display;
     private final Entity cameraEntity;
+    /**
+     * The world that this cabinet borrowed from the pool, which is returned once the game closes.
+     */
+    @Nullable
+    private ConsoleWorldPool.PooledWorld pooledWorld;
+    private volatile ConsoleAdmission.Ticket ticket;
     private final ServerPlayerEntity[] players = new ServerPlayerEntity[4];
     private volatile boolean runs = true;
     private int playerCount = 0;
     private boolean hasStarted = false;
+    private boolean hadController = false;
+    private boolean turboChordHeld = false;
+    private final AtomicBoolean errorResetPending = new AtomicBoolean();
 
-    public ConsoleBoxGame(GameSpace gameSpace, ServerWorld world, ConsoleBoxConfig config, GameCanvas canvas, Entity cameraEntity, VirtualDisplay display) {
+    public ConsoleBoxGame(GameSpace gameSpace, ServerWorld world, ConsoleBoxConfig config, GameCanvas canvas, Entity cameraEntity, VirtualDisplay display, ConsoleAdmission.Ticket ticket, Vec3d spawnPos, boolean standalone) {
         this.gameSpace = gameSpace;
+        this.ticket = ticket;
         this.world = world;
         this.config = config;
+        this.spawnPos = spawnPos;
+        this.standalone = standalone;
 
         this.cameraEntity = cameraEntity;
         this.canvas = canvas;
         this.display = display;
-        this.thread = new Thread(this::runThread);
+        this.thread = this.createThread(ticket);
+    }
+
+    private Thread createThread(ConsoleAdmission.Ticket ticket) {
+        CompletableFuture<Void> exit = new CompletableFuture<>();
+        this.threadExit = exit;
+
+        Thread thread = new Thread(() -> this.runThread(ticket, exit), "Console Box " + this.config.game());
+        thread.setDaemon(true);
+
+        return thread;
     }
 
     public static void setRules(GameActivity activity) {
@@ -92,45 +159,15 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
 
     public static GameOpenProcedure open(GameOpenContext<ConsoleBoxConfig> context) {
         ConsoleBoxConfig config = context.config();
+        Reservation reservation = ConsoleBoxGame.reserve(config);
 
-        RuntimeWorldConfig worldConfig = new RuntimeWorldConfig()
-                .setDimensionType(DimensionTypes.OVERWORLD_CAVES)
-                .setGenerator(new VoidChunkGenerator(context.server()));
-
-
-        var audioController = new BaseAudioController();
-        GameCanvas canvas = new GameCanvas(config, audioController);
-
-        return context.openWithWorld(worldConfig, (activity, world) -> {
-            VirtualDisplay display = VirtualDisplay.builder(canvas.getCanvas(), canvas.getDisplayPos(), Direction.SOUTH)
-                    .invisible()
-                    .build();
-
-            //world.setBlockState(BlockPos.ofFloored(canvas.getSpawnPos()), Blocks.BARRIER.getDefaultState());
-
-            var camera = EntityType.ITEM_DISPLAY.create(world, SpawnReason.LOAD);
-            assert camera != null;
-            camera.setInvisible(true);
-            camera.setPosition(canvas.getSpawnPos());
-            camera.setYaw(canvas.getSpawnAngle());
-            world.spawnEntity(camera);
+        // The world is borrowed from the pool rather than created for the game space, and is returned once the game closes
+        return context.open(activity -> {
+            ConsoleWorldPool.PooledWorld pooledWorld = ConsoleWorldPool.borrow(context.server());
+            ConsoleBoxGame phase = ConsoleBoxGame.create(activity, pooledWorld.asWorld(), config, reservation, pooledWorld.entities(), BlockPos.ORIGIN, true);
+            phase.pooledWorld = pooledWorld;
 
-            var leftAudio = EntityType.ITEM_DISPLAY.create(world, SpawnReason.LOAD);
-            assert leftAudio != null;
-            leftAudio.setInvisible(true);
-            leftAudio.setPosition(canvas.getSpawnPos().add(2, 0, 0));
-            world.spawnEntity(leftAudio);
-
-            var rightAudio = EntityType.ITEM_DISPLAY.create(world, SpawnReason.LOAD);
-            assert rightAudio != null;
-            rightAudio.setInvisible(true);
-            rightAudio.setPosition(canvas.getSpawnPos().add(-2, 0, 0));
-            world.spawnEntity(rightAudio);
-
-            ConsoleBoxGame phase = new ConsoleBoxGame(activity.getGameSpace(), world, config, canvas, camera, display);
-            audioController.setOutput(camera, leftAudio, rightAudio, activity.getGameSpace().getPlayers()::sendPacket);
             ConsoleBoxGame.setRules(activity);
-
             PlayerLimiter.addTo(activity, new PlayerLimiterConfig(phase.players.length));
 
             // Listeners
@@ -146,20 +183,194 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
         });
     }
 
+    /**
+     * Creates the configuration of a console world, which only holds the displays and a few entities.
+     * Everything that would otherwise simulate the empty world, such as time, weather, mob spawning and random ticks, is disabled,
+     * and no spawn chunks are kept loaded beyond those that players are viewing.
+     */
+    protected static RuntimeWorldConfig createWorldConfig(MinecraftServer server) {
+        return new RuntimeWorldConfig()
+                .setDimensionType(DimensionTypes.OVERWORLD_CAVES)
+                .setGenerator(new VoidChunkGenerator(server))
+                .setTimeOfDay(WORLD_TIME)
+                .setShouldTickTime(false)
+                .setGameRule(GameRules.DO_DAYLIGHT_CYCLE, false)
+                .setGameRule(GameRules.DO_WEATHER_CYCLE, false)
+                .setGameRule(GameRules.DO_MOB_SPAWNING, false)
+                .setGameRule(GameRules.DO_FIRE_TICK, false)
+                .setGameRule(GameRules.RANDOM_TICK_SPEED, 0)
+                .setGameRule(GameRules.SPAWN_CHUNK_RADIUS, 0);
+    }
+
+    /**
+     * Takes an admission ticket and a console for the given configuration, before the world is created.
+     */
+    protected static Reservation reserve(ConsoleBoxConfig config) {
+        ConsoleAdmission.Ticket ticket = ConsoleAdmission.enqueue();
+        if (ticket == null) {
+            throw new GameOpenException(Text.translatable("text.consolebox.queue_full"));
+        }
+
+        // Compilation overlaps with world creation, and the console thread shows a loading screen if it is not done
+        try {
+            return new Reservation(ticket, ConsoleWarmPool.take(config));
+        } catch (Throwable e) {
+            ticket.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a console cabinet in the given world, with its display and camera placed relative to the given offset.
+     *
+     * @param entities the camera and audio entities of the cabinet, which are spawned if they do not already exist
+     * @param standalone whether the cabinet is the only one in its game space, in which case every player views it
+     * and the game space closes once its first player leaves
+     */
+    protected static ConsoleBoxGame create(GameActivity activity, ServerWorld world, ConsoleBoxConfig config, Reservation reservation, @Nullable CabinetEntities entities, BlockPos offset, boolean standalone) {
+        var audioController = reservation.entry().audioController();
+        GameCanvas canvas = reservation.entry().canvas();
+
+        VirtualDisplay display = VirtualDisplay.builder(canvas.getCanvas(), canvas.getDisplayPos().add(offset), Direction.SOUTH)
+                .invisible()
+                .build();
+
+        Vec3d spawnPos = canvas.getSpawnPos().add(Vec3d.of(offset));
+        //world.setBlockState(BlockPos.ofFloored(spawnPos), Blocks.BARRIER.getDefaultState());
+
+        if (entities == null) {
+            entities = CabinetEntities.spawn(world);
+        }
+        entities.place(spawnPos, canvas.getSpawnAngle());
+
+        ConsoleBoxGame game = new ConsoleBoxGame(activity.getGameSpace(), world, config, canvas, entities.camera(), display, reservation.ticket(), spawnPos, standalone);
+        GAMES.add(game);
+        audioController.setOutput(entities.camera(), entities.leftAudio(), entities.rightAudio(), game::sendToViewers);
+
+        if (config.usesCabinetSaves()) {
+            canvas.setSaveHandler(game.getSaveHandler(null));
+        }
+
+        return game;
+    }
+
+    /**
+     * Attaches the save handler of a new controller. A cabinet that had a controller before is restarted first,
+     * so that the new controller does not continue the previous controller's session or write to their storage.
+     */
+    private void setController(ServerPlayerEntity player) {
+        SaveHandler handler = this.getSaveHandler(player);
+
+        if (this.hadController) {
+            this.canvas.flushSave();
+            this.canvas.restart(handler);
+        } else if (this.config.saveStore() != ConsoleBoxConfig.SaveStore.CABINET) {
+            // Cabinet saves are attached when the cabinet is created
+            this.canvas.setSaveHandler(handler);
+        }
+
+        this.hadController = true;
+    }
+
+    /**
+     * @param player the controller, which is only needed if saves are stored per player
+     */
+    private SaveHandler getSaveHandler(@Nullable ServerPlayerEntity player) {
+        if (!this.config.save()) {
+            return SaveHandler.NO_OP;
+        }
+
+        return switch (this.config.saveStore()) {
+            case PLAYER_DATA -> SaveHandler.player(player, this.gameSpace, this.config.game());
+            case PLAYER -> SaveHandler.stored(this.config.game(), player.getUuid());
+            case CABINET -> SaveHandler.stored(this.config.game(), this.getCabinetKey());
+        };
+    }
+
+    /**
+     * Sends a packet to the players that look through this cabinet's camera, so that the cabinets of a hall
+     * are only heard by their own players.
+     */
+    private void sendToViewers(Packet<?> packet) {
+        if (this.standalone) {
+            this.gameSpace.getPlayers().sendPacket(packet);
+            return;
+        }
+
+        for (ServerPlayerEntity player : this.players) {
+            if (player != null) {
+                player.networkHandler.sendPacket(packet);
+            }
+        }
+    }
+
+    /**
+     * @return the key that identifies the saves of this cabinet, which is derived from its configured cabinet ID
+     */
+    private UUID getCabinetKey() {
+        return UUID.nameUUIDFromBytes(("cabinet:" + this.config.cabinetId().orElseThrow()).getBytes(StandardCharsets.UTF_8));
+    }
+
     // Listeners
     @Override
     public void onAddPlayer(ServerPlayerEntity player) {
         this.display.addPlayer(player);
         this.display.getCanvas().addPlayer(player);
-        player.networkHandler.sendPacket(new GameStateChangeS2CPacket(GameStateChangeS2CPacket.GAME_MODE_CHANGED, GameMode.SPECTATOR.getId()));
-        player.networkHandler.sendPacket(new SetCameraEntityS2CPacket(this.cameraEntity));
+
+        if (this.isViewer(player)) {
+            player.networkHandler.sendPacket(new GameStateChangeS2CPacket(GameStateChangeS2CPacket.GAME_MODE_CHANGED, GameMode.SPECTATOR.getId()));
+            player.networkHandler.sendPacket(new SetCameraEntityS2CPacket(this.cameraEntity));
+        }
+
+        this.wake();
     }
 
     @Override
     public void onDestroy(GameCloseReason reason) {
+        GAMES.remove(this);
+
         this.display.destroy();
         this.display.getCanvas().destroy();
+
+        if (this.pooledWorld != null) {
+            ConsoleWorldPool.giveBack(this.pooledWorld);
+            this.pooledWorld = null;
+        }
+
+        this.canvas.flushSave();
+
+        // Carts stuck inside a callback are trapped by the watchdog, so the thread exits within its deadline
         this.runs = false;
+        this.canvas.detach();
+
+        // An admitted ticket is released by the console thread once it stops running the cart
+        this.ticket.cancel();
+
+        if (this.hasStarted) {
+            LockSupport.unpark(this.thread);
+            this.awaitTeardown(this.threadExit);
+        } else {
+            // The console thread never ran, so nothing else will release the ticket or close the canvas
+            this.ticket.release();
+            ConsoleWorkers.EXECUTOR.execute(this.canvas::close);
+        }
+    }
+
+    /**
+     * Closes the canvas once the console thread has exited after the game closes, without blocking any thread until then.
+     */
+    private void awaitTeardown(CompletableFuture<Void> exit) {
+        exit.copy().orTimeout(TEARDOWN_TIME, TimeUnit.MILLISECONDS).exceptionally(throwable -> {
+            LOGGER.warn("Console thread for '{}' did not exit within {} ms; it will close its resources once it does", this.config.game(), TEARDOWN_TIME);
+            return null;
+        });
+
+        exit.thenRunAsync(() -> {
+            if (this.canvas.isHibernated()) {
+                // The console thread exited when the console was hibernated, so it did not close the canvas
+                this.canvas.close();
+            }
+        }, ConsoleWorkers.EXECUTOR);
     }
 
     @Override
@@ -178,14 +389,37 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
 
         if (packet instanceof PlayerInputC2SPacket playerInputC2SPacket) {
             PlayerInput input = playerInputC2SPacket.input();
+            this.wake();
 
             var isJumping = this.config.swapXZ() ? input.sneak() : input.jump();
             var isSneaking = !this.config.swapXZ() ? input.sneak() : input.jump();
 
-            this.canvas.updateGamepad(id, input.forward(), input.left(), input.backward(), input.right(),
-                    isSneaking, isJumping);
-            if (input.sprint()) {
-                this.canvas.clearError();
+            boolean idle = this.canvas.isIdle();
+            if (this.canvas.updateGamepad(id, input.forward(), input.left(), input.backward(), input.right(),
+                    isSneaking, isJumping) && idle) {
+                // Skip the rest of the throttled frame so the cart reacts immediately
+                LockSupport.unpark(this.thread);
+            }
+            // Input is sent every tick while sprint is held, so only one reset is requested until it completes
+            if (input.sprint() && this.canvas.hasError() && this.errorResetPending.compareAndSet(false, true)) {
+                this.reset().whenComplete((reset, throwable) -> {
+                    if (throwable == null && !reset) {
+                        // Carts that never started cannot be reset, so the error is only dismissed
+                        this.canvas.clearError();
+                    }
+
+                    this.errorResetPending.set(false);
+                });
+            }
+
+            // Holding sprint with both buttons toggles turbo for the first player
+            boolean turboChord = input.sprint() && input.jump() && input.sneak();
+            if (id == 0 && turboChord && !this.turboChordHeld) {
+                int multiplier = this.setTurboMultiplier(this.canvas.getTurboMultiplier() > 1 ? 1 : this.config.maxTurboMultiplier());
+                player.sendMessage(Text.translatable("text.consolebox.turbo", multiplier), true);
+            }
+            if (id == 0) {
+                this.turboChordHeld = turboChord;
             }
         } else if (packet instanceof PlayerLoadedC2SPacket) {
             player.networkHandler.sendPacket(new SetCameraEntityS2CPacket(this.cameraEntity));
@@ -201,8 +435,13 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
             this.hasStarted = true;
         }
 
+        if (this.world.getServer().getTicks() % SAVE_FLUSH_INTERVAL == 0) {
+            this.canvas.flushSave();
+            this.canvas.refreshSave();
+        }
+
         for (var player : this.gameSpace.getPlayers()) {
-            if (player.getCameraEntity() != this.cameraEntity && this.cameraEntity.age > 2) {
+            if (this.isViewer(player) && player.getCameraEntity() != this.cameraEntity && this.cameraEntity.age > 2) {
                 player.setCameraEntity(this.cameraEntity);
             }
         }
@@ -214,8 +453,84 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
 
     }
 
-    private void runThread() {
+    /**
+     * Restores a hibernated console on a new console thread.
+     * A console that is still being hibernated is restored by its console thread once it has finished hibernating.
+     */
+    private void wake() {
+        if (!this.runs || !this.hasStarted) {
+            return;
+        }
+
+        while (true) {
+            ThreadState state = this.threadState.get();
+
+            if (state == ThreadState.HIBERNATING) {
+                if (this.threadState.compareAndSet(state, ThreadState.WAKE_REQUESTED)) {
+                    return;
+                }
+            } else if (state == ThreadState.HIBERNATED) {
+                if (this.threadState.compareAndSet(state, ThreadState.RUNNING)) {
+                    this.startThread();
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Restarts a console whose wake was requested while it was being hibernated, unless the game has closed since.
+     * A closed game closes the hibernated canvas once the previous console thread has exited.
+     */
+    private void restartThread() {
+        if (!this.runs) {
+            return;
+        }
+
+        this.threadState.set(ThreadState.RUNNING);
+        this.startThread();
+    }
+
+    /**
+     * Starts a new console thread for a hibernated console, which stays hibernated if there is no room in the admission queue.
+     * This should be called on the server thread.
+     */
+    private void startThread() {
+        ConsoleAdmission.Ticket ticket = this.runs ? ConsoleAdmission.enqueue() : null;
+        if (ticket == null) {
+            // The console stays hibernated until the next join or input finds room in the queue
+            this.threadState.set(ThreadState.HIBERNATED);
+            return;
+        }
+
+        this.ticket = ticket;
+
+        Thread thread = this.createThread(ticket);
+        this.thread = thread;
+        thread.start();
+    }
+
+    private boolean shouldHibernate() {
+        return this.config.hibernateAfter() > 0 && this.canvas.getIdleMillis() > this.config.hibernateAfter() * 1000L && this.canvas.canCaptureState();
+    }
+
+    private void runThread(ConsoleAdmission.Ticket ticket, CompletableFuture<Void> exit) {
+        boolean hibernated = false;
+
         try {
+            while (!ticket.await(QUEUE_REFRESH_TIME)) {
+                if (!this.runs) {
+                    return;
+                }
+                this.canvas.drawStatus("Please wait", "Queue position: " + ticket.getPosition());
+            }
+
+            if (!this.runs) {
+                return;
+            }
+
             this.canvas.start();
             long time;
             long lastTime = 0;
@@ -224,25 +539,51 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
                 this.canvas.tick(lastTime);
                 lastTime = System.currentTimeMillis() - time;
 
-                Thread.sleep(Math.max(1000 / 60 - System.currentTimeMillis() + time, 1));
+                if (this.shouldHibernate() && this.threadState.compareAndSet(ThreadState.RUNNING, ThreadState.HIBERNATING)) {
+                    if (this.canvas.hibernate()) {
+                        // Frees the admission slot and this thread until the console is woken
+                        hibernated = true;
+                        break;
+                    }
+
+                    // The console keeps running, which also satisfies any wake requested in the meantime
+                    this.threadState.set(ThreadState.RUNNING);
+                }
+
+                long frameTime = this.canvas.isIdle() ? IDLE_FRAME_TIME : FRAME_TIME;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(frameTime - System.currentTimeMillis() + time, 1)));
             }
         } catch (Throwable e) {
-            e.printStackTrace();
+            LOGGER.error("Console thread for '{}' failed", this.config.game(), e);
+        } finally {
+            try {
+                ticket.release();
+
+                if (!hibernated || !this.runs) {
+                    this.canvas.close();
+                } else if (!this.threadState.compareAndSet(ThreadState.HIBERNATING, ThreadState.HIBERNATED)) {
+                    // Input or a join arrived while the console was being hibernated, so it is restarted on the server thread,
+                    // which is the only thread that replaces the console thread and its ticket
+                    this.world.getServer().execute(this::restartThread);
+                }
+            } finally {
+                exit.complete(null);
+            }
         }
     }
 
     // /game open {type:"consolebox:console_box", game:"consolebox:cart"}
     @Override
     public JoinAcceptorResult onAcceptPlayers(JoinAcceptor acceptor) {
-        Vec3d spawnPos = this.canvas.getSpawnPos();
+        Vec3d spawnPos = this.spawnPos;
 
         if (acceptor.intent().canPlay()) {
             for (int i = 0; i < players.length; i++) {
                 final var x = i;
                 if (this.players[x] == null) {
                     return acceptor.teleport(this.world, spawnPos).thenRunForEach(player -> {
-                        if (x == 0 && this.config.save()) {
-                            this.canvas.setSaveHandler(SaveHandler.player(player, this.gameSpace, this.config.game()));
+                        if (x == 0) {
+                            this.setController(player);
                         }
                         this.players[x] = player;
                         this.playerCount++;
@@ -274,11 +615,24 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
         this.display.removePlayer(player);
         this.display.getCanvas().removePlayer(player);
 
+        if (!this.hasPlayer(player)) {
+            return;
+        }
+
         if (player.getVehicle() != null) {
             player.getVehicle().discard();
         }
 
-        if (player == this.players[0]) {
+        if (this.isController(player)) {
+            if (this.config.usesCabinetSaves()) {
+                this.canvas.flushSave();
+            } else {
+                // The save handler of the player can no longer be used once they have left
+                this.canvas.setSaveHandler(SaveHandler.NO_OP);
+            }
+        }
+
+        if (player == this.players[0] && this.standalone) {
             this.gameSpace.close(GameCloseReason.FINISHED);
         } else {
             for (int i = 0; i < 4; i++) {
@@ -292,6 +646,176 @@ public class ConsoleBoxGame implements GamePlayerEvents.Add, GameActivityEvents.
         }
     }
 
+    public boolean isController(ServerPlayerEntity player) {
+        return player == this.players[0];
+    }
+
+    public boolean hasPlayer(ServerPlayerEntity player) {
+        for (ServerPlayerEntity slot : this.players) {
+            if (slot == player) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of free player slots
+     */
+    public int getFreeSlots() {
+        return this.players.length - this.playerCount;
+    }
+
+    public boolean isControllerFree() {
+        return this.players[0] == null;
+    }
+
+    /**
+     * @return whether the given player looks through this cabinet's camera
+     */
+    private boolean isViewer(ServerPlayerEntity player) {
+        return this.standalone || this.hasPlayer(player);
+    }
+
+    /**
+     * Restarts the cart on the console thread, waking the console if it is hibernated.
+     *
+     * @return a future completed with whether the cart was restarted
+     */
+    public CompletableFuture<Boolean> reset() {
+        this.wake();
+        return this.canvas.reset();
+    }
+
+    /**
+     * Captures the cart's state on the console thread, waking the console if it is hibernated.
+     *
+     * @see GameCanvas#saveState()
+     */
+    public CompletableFuture<ConsoleSnapshot> saveState() {
+        this.wake();
+        return this.canvas.saveState();
+    }
+
+    /**
+     * Restores a captured state on the console thread, waking the console if it is hibernated.
+     *
+     * @see GameCanvas#loadState(ConsoleSnapshot)
+     */
+    public CompletableFuture<Boolean> loadState(ConsoleSnapshot snapshot) {
+        this.wake();
+        return this.canvas.loadState(snapshot);
+    }
+
+    /**
+     * Sets the gamepad state of a player slot as if it came from that player, waking the console thread if it is idle.
+     *
+     * @see GameCanvas#injectGamepad(int, int)
+     */
+    public void injectGamepad(int id, int buttons) {
+        boolean idle = this.canvas.isIdle();
+
+        if (this.canvas.injectGamepad(id, buttons) && idle) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    public GameCanvas getCanvas() {
+        return this.canvas;
+    }
+
+    /**
+     * @return the identifier of the cart that this console runs
+     */
+    public Identifier getCart() {
+        return this.config.game();
+    }
+
+    public int setTurboMultiplier(int multiplier) {
+        return this.canvas.setTurboMultiplier(multiplier);
+    }
+
+    public int getTurboMultiplier() {
+        return this.canvas.getTurboMultiplier();
+    }
+
+    public int getMaxTurboMultiplier() {
+        return this.config.maxTurboMultiplier();
+    }
+
+    /**
+     * Finds the console game in which the given player occupies a player slot.
+     */
+    @Nullable
+    public static ConsoleBoxGame byPlayer(ServerPlayerEntity player) {
+        for (ConsoleBoxGame game : GAMES) {
+            if (game.hasPlayer(player)) {
+                return game;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * An admission ticket and console reserved for a cabinet whose world has not been created yet.
+     */
+    protected record Reservation(ConsoleAdmission.Ticket ticket, ConsoleWarmPool.Entry entry) {
+        /**
+         * Gives up the reservation if its cabinet could not be created.
+         */
+        protected void release() {
+            this.ticket.release();
+            ConsoleWorkers.EXECUTOR.execute(this.entry.canvas()::close);
+        }
+    }
+
+    /**
+     * The invisible entities of a cabinet: the camera that its players look through and the emitters of its left and right audio channels.
+     */
+    protected record CabinetEntities(Entity camera, Entity leftAudio, Entity rightAudio) {
+        protected static CabinetEntities spawn(ServerWorld world) {
+            return new CabinetEntities(spawnMarker(world), spawnMarker(world), spawnMarker(world));
+        }
+
+        private static Entity spawnMarker(ServerWorld world) {
+            var entity = EntityType.ITEM_DISPLAY.create(world, SpawnReason.LOAD);
+            assert entity != null;
+            entity.setInvisible(true);
+            world.spawnEntity(entity);
+
+            return entity;
+        }
+
+        /**
+         * Moves the entities into place around the position that players view the cabinet from.
+         */
+        protected void place(Vec3d spawnPos, float angle) {
+            this.camera.setPosition(spawnPos);
+            this.camera.setYaw(angle);
+            this.leftAudio.setPosition(spawnPos.add(2, 0, 0));
+            this.rightAudio.setPosition(spawnPos.add(-2, 0, 0));
+        }
+
+        protected boolean contains(Entity entity) {
+            return entity == this.camera || entity == this.leftAudio || entity == this.rightAudio;
+        }
+    }
+
+    /**
+     * The lifecycle of the console thread, which is only changed atomically so that a console woken while it is being hibernated is always restored.
+     */
+    private enum ThreadState {
+        RUNNING,
+        HIBERNATING,
+        /**
+         * The console is being hibernated, and is restored on the server thread as soon as it has been.
+         */
+        WAKE_REQUESTED,
+        HIBERNATED;
+    }
+
     // Utilities
     private void spawnMount(Vec3d playerPos, ServerPlayerEntity player) {
         MuleEntity mount = EntityType.MULE.create(this.world, SpawnReason.JOCKEY);
@@ -0,0 +1,47 @@
+package io.github.haykam821.consolebox.game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.github.haykam821.consolebox.ConsoleBox;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+
+/**
+ * Locates the files that consoles keep, which belong to the world that is being played.
+ */
+public final class ConsoleDirectories {
+	@Nullable
+	private static volatile Path root;
+
+	private ConsoleDirectories() {
+		return;
+	}
+
+	/**
+	 * Keeps files in the directory of the given server's world from now on.
+	 */
+	public static void setWorld(MinecraftServer server) {
+		root = server.getSavePath(WorldSavePath.ROOT).resolve(ConsoleBox.MOD_ID).normalize();
+	}
+
+	public static void clearWorld() {
+		root = null;
+	}
+
+	/**
+	 * @return the directory with the given name in the directory of the world that is being played
+	 * @throws IOException if no world is loaded
+	 */
+	public static Path resolve(String name) throws IOException {
+		Path root = ConsoleDirectories.root;
+
+		if (root == null) {
+			throw new IOException("Console files can only be used while a world is loaded");
+		}
+
+		return root.resolve(name);
+	}
+}
@@ -0,0 +1,81 @@
+package io.github.haykam821.consolebox.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the snapshots of hibernated consoles, which have released their native resources until they are used again.
+ */
+public final class ConsoleHibernation {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleHibernation");
+
+	private static final String DIRECTORY = "hibernation";
+
+	private ConsoleHibernation() {
+		return;
+	}
+
+	/**
+	 * Writes a snapshot to a new file.
+	 *
+	 * @return the file that the snapshot was written to
+	 */
+	protected static Path write(ConsoleSnapshot snapshot) throws IOException {
+		Path directory = ConsoleDirectories.resolve(DIRECTORY);
+		Files.createDirectories(directory);
+
+		Path path = directory.resolve(UUID.randomUUID() + ".bin");
+
+		try (OutputStream stream = Files.newOutputStream(path)) {
+			snapshot.write(stream);
+		} catch (IOException exception) {
+			Files.deleteIfExists(path);
+			throw exception;
+		}
+
+		return path;
+	}
+
+	/**
+	 * @param maxGlobals the number of globals in the module that the snapshot will be restored into
+	 */
+	protected static ConsoleSnapshot read(Path path, int maxGlobals) throws IOException {
+		try (InputStream stream = Files.newInputStream(path)) {
+			return ConsoleSnapshot.read(stream, maxGlobals);
+		}
+	}
+
+	protected static void delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException exception) {
+			LOGGER.warn("Failed to delete hibernated console '{}'", path, exception);
+		}
+	}
+
+	/**
+	 * Deletes the snapshots left behind by consoles that were hibernated when the server last stopped.
+	 */
+	public static void clear() {
+		try {
+			Path directory = ConsoleDirectories.resolve(DIRECTORY);
+			if (!Files.isDirectory(directory)) {
+				return;
+			}
+
+			try (Stream<Path> paths = Files.list(directory)) {
+				paths.forEach(ConsoleHibernation::delete);
+			}
+		} catch (IOException exception) {
+			LOGGER.warn("Failed to clear hibernated consoles", exception);
+		}
+	}
+}
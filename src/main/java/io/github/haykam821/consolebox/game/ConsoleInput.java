@@ -0,0 +1,175 @@
+package io.github.haykam821.consolebox.game;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latches the latest input of each player without locking, so that the server thread never waits for a frame to finish.
+ *
+ * <p>The latched input is copied into linear memory once at the start of each frame.
+ * Inputs that are replaced before a frame starts are coalesced, as only the state at the start of a frame is visible to carts.
+ */
+public final class ConsoleInput {
+	public static final int BUTTON_X = 1;
+	public static final int BUTTON_Z = 2;
+	public static final int BUTTON_LEFT = 16;
+	public static final int BUTTON_RIGHT = 32;
+	public static final int BUTTON_UP = 64;
+	public static final int BUTTON_DOWN = 128;
+
+	private static final int PLAYERS = 4;
+	private static final int MOUSE_SLOT = PLAYERS;
+
+	private static final LongAdder APPLIED = new LongAdder();
+	private static final LongAdder COALESCED = new LongAdder();
+	private static final LongAdder CONTENDED = new LongAdder();
+	private static final LongAdder TOTAL_AGE_NANOS = new LongAdder();
+	private static final LongAccumulator MAX_AGE_NANOS = new LongAccumulator(Math::max, 0);
+
+	private final AtomicIntegerArray gamepads = new AtomicIntegerArray(PLAYERS);
+	/**
+	 * The mouse position and buttons, packed as {@code x | y << 16 | buttons << 32}.
+	 */
+	private final AtomicLong mouse = new AtomicLong();
+	/**
+	 * The time at which each slot was first written since the previous frame, or {@code 0} if it was not.
+	 */
+	private final AtomicLongArray latchedAt = new AtomicLongArray(PLAYERS + 1);
+
+	/**
+	 * @return whether the gamepad state differs from the previous state
+	 */
+	public boolean setGamepad(int id, boolean forward, boolean left, boolean backward, boolean right, boolean isSneaking, boolean isJumping) {
+		int gamepad = 0;
+
+		if (isJumping) gamepad |= BUTTON_X;
+		if (isSneaking) gamepad |= BUTTON_Z;
+
+		if (left) gamepad |= BUTTON_LEFT;
+		if (right) gamepad |= BUTTON_RIGHT;
+		if (forward) gamepad |= BUTTON_UP;
+		if (backward) gamepad |= BUTTON_DOWN;
+
+		return this.setGamepad(id, gamepad);
+	}
+
+	/**
+	 * @param gamepad the pressed buttons, as a combination of the {@code BUTTON_} constants
+	 * @return whether the gamepad state differs from the previous state
+	 */
+	public boolean setGamepad(int id, int gamepad) {
+		gamepad &= 0xFF;
+		boolean changed = this.gamepads.getAndSet(id, gamepad) != gamepad;
+
+		if (changed) {
+			this.latch(id);
+		}
+		return changed;
+	}
+
+	/**
+	 * @return whether the mouse position differs from the previous position
+	 */
+	public boolean setMousePosition(int id, int mouseX, int mouseY) {
+		if (id != 0) {
+			return false;
+		}
+
+		long position = (mouseX & 0xFFFFL) | (mouseY & 0xFFFFL) << 16;
+		return this.updateMouse(0xFFFFFFFFL, position);
+	}
+
+	/**
+	 * @return whether the mouse buttons differ from the previous buttons
+	 */
+	public boolean setMouseState(int id, boolean leftClick, boolean rightClick, boolean middleClick) {
+		if (id != 0) {
+			return false;
+		}
+
+		long buttons = 0;
+
+		if (leftClick) {
+			buttons |= 1;
+		}
+
+		if (rightClick) {
+			buttons |= 2;
+		}
+
+		if (middleClick) {
+			buttons |= 4;
+		}
+
+		return this.updateMouse(0xFFL << 32, buttons << 32);
+	}
+
+	private boolean updateMouse(long mask, long bits) {
+		while (true) {
+			long previous = this.mouse.get();
+			long next = (previous & ~mask) | bits;
+
+			if (previous == next) {
+				return false;
+			} else if (this.mouse.compareAndSet(previous, next)) {
+				this.latch(MOUSE_SLOT);
+				return true;
+			}
+
+			CONTENDED.increment();
+		}
+	}
+
+	private void latch(int slot) {
+		if (!this.latchedAt.compareAndSet(slot, 0, System.nanoTime())) {
+			COALESCED.increment();
+		}
+	}
+
+	/**
+	 * Copies the latched input into linear memory. This should be called at the start of each frame.
+	 */
+	public void apply(GameMemory memory) {
+		long now = System.nanoTime();
+
+		for (int id = 0; id < PLAYERS; id++) {
+			memory.writeGamepad(id, (byte) this.gamepads.get(id));
+		}
+
+		long mouse = this.mouse.get();
+		memory.writeMouse((short) mouse, (short) (mouse >>> 16), (byte) (mouse >>> 32));
+
+		for (int slot = 0; slot < this.latchedAt.length(); slot++) {
+			long latchedAt = this.latchedAt.getAndSet(slot, 0);
+
+			if (latchedAt != 0) {
+				long age = now - latchedAt;
+
+				APPLIED.increment();
+				TOTAL_AGE_NANOS.add(age);
+				MAX_AGE_NANOS.accumulate(age);
+			}
+		}
+	}
+
+	public static Stats getStats() {
+		long applied = APPLIED.sum();
+		long averageAgeNanos = applied == 0 ? 0 : TOTAL_AGE_NANOS.sum() / applied;
+
+		return new Stats(applied, COALESCED.sum(), CONTENDED.sum(), TimeUnit.NANOSECONDS.toMicros(averageAgeNanos), TimeUnit.NANOSECONDS.toMicros(MAX_AGE_NANOS.get()));
+	}
+
+	/**
+	 * @param applied the number of latched inputs that were copied into linear memory
+	 * @param coalesced the number of inputs that replaced an input that had not been copied yet
+	 * @param contended the number of times that writing an input had to be retried
+	 * @param averageAgeMicros the average time between an input being latched and being copied
+	 * @param maxAgeMicros the longest time between an input being latched and being copied
+	 */
+	public record Stats(long applied, long coalesced, long contended, long averageAgeMicros, long maxAgeMicros) {
+	}
+}
@@ -0,0 +1,68 @@
+package io.github.haykam821.consolebox.game;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks consoles that hold native resources, so that their memory use can be reported
+ * and consoles that were not closed along with their game space can be found.
+ */
+public final class ConsoleResourceTracker {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleResourceTracker");
+
+	/**
+	 * How long a console may keep its resources after its game space closes before it is reported as leaked.
+	 */
+	private static final long LEAK_GRACE_MILLIS = 30 * 1000;
+
+	private static final Set<GameCanvas> CANVASES = ConcurrentHashMap.newKeySet();
+	private static final Set<GameCanvas> REPORTED = ConcurrentHashMap.newKeySet();
+
+	private ConsoleResourceTracker() {
+		return;
+	}
+
+	protected static void track(GameCanvas canvas) {
+		CANVASES.add(canvas);
+	}
+
+	protected static void untrack(GameCanvas canvas) {
+		CANVASES.remove(canvas);
+		REPORTED.remove(canvas);
+	}
+
+	/**
+	 * Reports consoles whose resources outlived their game space.
+	 */
+	public static void checkLeaks() {
+		long now = System.currentTimeMillis();
+
+		for (GameCanvas canvas : CANVASES) {
+			long detachedAt = canvas.getDetachedAt();
+
+			if (detachedAt > 0 && now - detachedAt > LEAK_GRACE_MILLIS && REPORTED.add(canvas)) {
+				LOGGER.warn("Console {} still holds {} native bytes and {} heap bytes {} ms after its game space closed", canvas, canvas.getNativeBytes(), canvas.getHeapBytes(), now - detachedAt);
+			}
+		}
+	}
+
+	public static Stats getStats() {
+		int count = 0;
+		long nativeBytes = 0;
+		long heapBytes = 0;
+
+		for (GameCanvas canvas : CANVASES) {
+			count += 1;
+			nativeBytes += canvas.getNativeBytes();
+			heapBytes += canvas.getHeapBytes();
+		}
+
+		return new Stats(count, nativeBytes, heapBytes);
+	}
+
+	public record Stats(int consoles, long nativeBytes, long heapBytes) {
+	}
+}
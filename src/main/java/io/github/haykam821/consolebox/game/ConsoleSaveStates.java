@@ -0,0 +1,77 @@
+package io.github.haykam821.consolebox.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
+import net.minecraft.util.Identifier;
+
+/**
+ * Stores the save states that players take of running carts, one per player and cart.
+ *
+ * <p>States are captured as {@link ConsoleSnapshot snapshots} by the caller, then compressed and written on a worker thread.
+ */
+public final class ConsoleSaveStates {
+	private static final String DIRECTORY = "states";
+
+	private ConsoleSaveStates() {
+		return;
+	}
+
+	private static Path getPath(UUID player, Identifier game) throws IOException {
+		return ConsoleDirectories.resolve(DIRECTORY).resolve(player.toString()).resolve(game.getNamespace()).resolve(game.getPath() + ".bin");
+	}
+
+	/**
+	 * Replaces the save state of a player for a cart. The previous state is kept until the new one has been written completely.
+	 */
+	public static CompletableFuture<Void> write(UUID player, Identifier game, ConsoleSnapshot snapshot) {
+		return CompletableFuture.runAsync(() -> {
+			try {
+				Path path = ConsoleSaveStates.getPath(player, game);
+				Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+				Files.createDirectories(path.getParent());
+
+				try (OutputStream stream = Files.newOutputStream(temporaryPath)) {
+					snapshot.write(stream);
+				}
+
+				Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, ConsoleWorkers.EXECUTOR);
+	}
+
+	/**
+	 * Reads and decompresses the save state of a player for a cart, if they have taken one.
+	 *
+	 * @param maxGlobals the number of globals in the module that the state will be restored into
+	 */
+	public static CompletableFuture<Optional<ConsoleSnapshot>> read(UUID player, Identifier game, int maxGlobals) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				Path path = ConsoleSaveStates.getPath(player, game);
+
+				if (!Files.isRegularFile(path)) {
+					return Optional.empty();
+				}
+
+				try (InputStream stream = Files.newInputStream(path)) {
+					return Optional.of(ConsoleSnapshot.read(stream, maxGlobals));
+				}
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, ConsoleWorkers.EXECUTOR);
+	}
+}
@@ -0,0 +1,134 @@
+package io.github.haykam821.consolebox.game;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.google.common.hash.HashCode;
+
+import io.github.kawamuray.wasmtime.Val;
+
+/**
+ * The state of a running cart between two callbacks: its linear memory and the values of its exported globals,
+ * along with the hash of the cart that it was captured from.
+ *
+ * <p>Mutable globals that the cart does not export itself are exported when it is compiled, so that they are captured as well.
+ */
+public record ConsoleSnapshot(HashCode cart, byte[] memory, Map<String, Val> globals) {
+	private static final int MAGIC = 0x434F4E53;
+	private static final int VERSION = 2;
+
+	private static final int MEMORY_SIZE = HardwareConstants.MEMORY_PAGES * HardwareConstants.PAGE_SIZE;
+
+	/**
+	 * Writes this snapshot in a compressed form. The stream is finished but not closed.
+	 */
+	public void write(OutputStream stream) throws IOException {
+		DeflaterOutputStream deflater = new DeflaterOutputStream(stream);
+		DataOutputStream output = new DataOutputStream(deflater);
+
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+
+		byte[] cart = this.cart.asBytes();
+		output.writeByte(cart.length);
+		output.write(cart);
+
+		output.writeInt(this.memory.length);
+		output.write(this.memory);
+
+		output.writeInt(this.globals.size());
+		for (Map.Entry<String, Val> global : this.globals.entrySet()) {
+			output.writeUTF(global.getKey());
+			output.writeByte(global.getValue().getType().ordinal());
+			output.writeLong(ConsoleSnapshot.toBits(global.getValue()));
+		}
+
+		output.flush();
+		deflater.finish();
+	}
+
+	/**
+	 * Reads a snapshot, rejecting one whose lengths could not belong to a console as corrupt.
+	 *
+	 * @param maxGlobals the number of globals in the module that the snapshot will be restored into
+	 */
+	public static ConsoleSnapshot read(InputStream stream, int maxGlobals) throws IOException {
+		DataInputStream input = new DataInputStream(new InflaterInputStream(stream));
+
+		if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+			throw new IOException("Not a console snapshot of a supported version");
+		}
+
+		byte[] cart = new byte[input.readUnsignedByte()];
+		input.readFully(cart);
+
+		if (cart.length == 0) {
+			throw new IOException("Console snapshot without a cart hash");
+		}
+
+		int memoryLength = input.readInt();
+		if (memoryLength < 0 || memoryLength > MEMORY_SIZE) {
+			throw new IOException("Corrupt console snapshot with " + memoryLength + " bytes of memory");
+		}
+
+		byte[] memory = new byte[memoryLength];
+		input.readFully(memory);
+
+		int globalCount = input.readInt();
+		if (globalCount < 0 || globalCount > maxGlobals) {
+			throw new IOException("Corrupt console snapshot with " + globalCount + " globals");
+		}
+
+		Map<String, Val> globals = new LinkedHashMap<>();
+		Val.Type[] types = Val.Type.values();
+
+		for (int index = 0; index < globalCount; index++) {
+			String name = input.readUTF();
+
+			int ordinal = input.readUnsignedByte();
+			if (ordinal >= types.length) {
+				throw new IOException("Corrupt console snapshot with global type " + ordinal);
+			}
+
+			Val.Type type = types[ordinal];
+
+			globals.put(name, ConsoleSnapshot.fromBits(type, input.readLong()));
+		}
+
+		return new ConsoleSnapshot(HashCode.fromBytes(cart), memory, globals);
+	}
+
+	/**
+	 * @return whether the given global type can be stored in a snapshot
+	 */
+	public static boolean isSupported(Val.Type type) {
+		return type == Val.Type.I32 || type == Val.Type.I64 || type == Val.Type.F32 || type == Val.Type.F64;
+	}
+
+	public static long toBits(Val value) {
+		return switch (value.getType()) {
+			case I32 -> value.i32();
+			case I64 -> value.i64();
+			case F32 -> Float.floatToRawIntBits(value.f32());
+			case F64 -> Double.doubleToRawLongBits(value.f64());
+			default -> throw new IllegalArgumentException("Unsupported global type " + value.getType());
+		};
+	}
+
+	private static Val fromBits(Val.Type type, long bits) throws IOException {
+		return switch (type) {
+			case I32 -> Val.fromI32((int) bits);
+			case I64 -> Val.fromI64(bits);
+			case F32 -> Val.fromF32(Float.intBitsToFloat((int) bits));
+			case F64 -> Val.fromF64(Double.longBitsToDouble(bits));
+			default -> throw new IOException("Unsupported global type " + type);
+		};
+	}
+}
@@ -0,0 +1,84 @@
+package io.github.haykam821.consolebox.game;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+
+import io.github.haykam821.consolebox.game.render.FramebufferRendering;
+
+/**
+ * The text and trace imports of a console, which read their strings directly from linear memory.
+ *
+ * <p>Text is drawn without copying the string, and traced strings are only decoded if tracing is enabled,
+ * so that carts which draw or trace text every frame do not allocate.
+ */
+public final class ConsoleText {
+	private ConsoleText() {
+		return;
+	}
+
+	/**
+	 * Draws a null-terminated string.
+	 */
+	public static void text(MemoryView memory, MemoryView framebuffer, int drawColors, int string, int x, int y) {
+		ConsoleText.drawText(memory, framebuffer, drawColors, string, memory.size(), 1, x, y);
+	}
+
+	public static void textUtf8(MemoryView memory, MemoryView framebuffer, int drawColors, int string, int length, int x, int y) {
+		ConsoleText.drawText(memory, framebuffer, drawColors, string, string + length, 1, x, y);
+	}
+
+	public static void textUtf16(MemoryView memory, MemoryView framebuffer, int drawColors, int string, int length, int x, int y) {
+		// Only the low byte of each little-endian code unit is drawn
+		ConsoleText.drawText(memory, framebuffer, drawColors, string, string + length / 2 * 2, 2, x, y);
+	}
+
+	private static void drawText(MemoryView memory, MemoryView framebuffer, int drawColors, int string, int end, int stride, int x, int y) {
+		FramebufferRendering.drawText(framebuffer, drawColors, memory, string, Math.min(end, memory.size()), stride, x, y);
+	}
+
+	public static void trace(Logger logger, MemoryView memory, int string) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("From game: {}", ConsoleText.readString(memory, string));
+		}
+	}
+
+	public static void traceUtf8(Logger logger, MemoryView memory, int string, int length) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("From game: {}", ConsoleText.readUnterminatedString(memory, string, length, StandardCharsets.UTF_8));
+		}
+	}
+
+	public static void traceUtf16(Logger logger, MemoryView memory, int string, int length) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("From game: {}", ConsoleText.readUnterminatedString(memory, string, length, StandardCharsets.UTF_16LE));
+		}
+	}
+
+	/**
+	 * Traces a format string without formatting it, as the arguments on the stack are not read.
+	 */
+	public static void tracef(Logger logger, MemoryView memory, int string) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("From game (unformatted): {}", ConsoleText.readString(memory, string));
+		}
+	}
+
+	private static String readString(MemoryView memory, int start) {
+		int end = memory.indexOfZero(start);
+
+		if (end == -1) {
+			return "";
+		}
+
+		return ConsoleText.readUnterminatedString(memory, start, end - start, StandardCharsets.US_ASCII);
+	}
+
+	private static String readUnterminatedString(MemoryView memory, int start, int length, Charset charset) {
+		byte[] bytes = new byte[length];
+		memory.copyTo(start, bytes, 0, length);
+
+		return new String(bytes, charset);
+	}
+}
@@ -0,0 +1,175 @@
+package io.github.haykam821.consolebox.game;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.haykam821.consolebox.game.audio.BaseAudioController;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
+
+/**
+ * Keeps linked, not yet started consoles ready for configurations with a warm pool, so that opening them
+ * skips compilation, linking and canvas setup.
+ *
+ * <p>Each pool grows with the number of recent opens of its configuration, up to the configured size,
+ * and is emptied once its configuration has not been opened for a while.
+ */
+public final class ConsoleWarmPool {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleWarmPool");
+
+	private static final long DEMAND_WINDOW_MILLIS = 10 * 60 * 1000;
+	private static final long IDLE_EVICTION_MILLIS = 5 * 60 * 1000;
+
+	private static final Map<ConsoleBoxConfig, Pool> POOLS = new ConcurrentHashMap<>();
+
+	private ConsoleWarmPool() {
+		return;
+	}
+
+	/**
+	 * Takes a pooled console for the given configuration, or creates a new one if none is available.
+	 * In either case, the returned console has at least started being prepared.
+	 */
+	public static Entry take(ConsoleBoxConfig config) {
+		if (config.warmPoolSize() <= 0) {
+			return Entry.create(config);
+		}
+
+		Pool pool = POOLS.computeIfAbsent(config, Pool::new);
+		Entry entry = pool.take();
+
+		ConsoleWorkers.EXECUTOR.execute(pool::refill);
+
+		if (entry == null) {
+			return Entry.create(config);
+		}
+
+		// The console may have waited in the pool for longer than its idle timeout
+		entry.canvas().markActive();
+		return entry;
+	}
+
+	/**
+	 * Evicts pooled consoles that have not been used recently.
+	 */
+	public static void evictIdle() {
+		long now = System.currentTimeMillis();
+
+		POOLS.values().removeIf(pool -> pool.evictIdle(now));
+	}
+
+	public static void clear() {
+		POOLS.values().removeIf(pool -> {
+			pool.clear();
+			return true;
+		});
+	}
+
+	public record Entry(GameCanvas canvas, BaseAudioController audioController) {
+		private static Entry create(ConsoleBoxConfig config) {
+			var audioController = new BaseAudioController();
+			var canvas = new GameCanvas(config, audioController);
+
+			canvas.prepareAsync();
+			return new Entry(canvas, audioController);
+		}
+
+		private static void close(Entry entry) {
+			ConsoleWorkers.EXECUTOR.execute(entry.canvas()::close);
+		}
+	}
+
+	private static final class Pool {
+		private final ConsoleBoxConfig config;
+
+		private final Deque<Entry> entries = new ArrayDeque<>();
+		private final Deque<Long> demand = new ArrayDeque<>();
+		private int pending = 0;
+		/**
+		 * Whether this pool has been removed, after which consoles that finish being created for it are closed instead of pooled.
+		 */
+		private boolean closed = false;
+
+		private Pool(ConsoleBoxConfig config) {
+			this.config = config;
+		}
+
+		private synchronized void clear() {
+			this.closed = true;
+
+			while (!this.entries.isEmpty()) {
+				Entry.close(this.entries.poll());
+			}
+		}
+
+		private synchronized Entry take() {
+			this.demand.add(System.currentTimeMillis());
+			return this.entries.poll();
+		}
+
+		/**
+		 * Gets the number of consoles to keep ready, which is the number of recent opens limited by the configured size.
+		 */
+		private int getTargetSize(long now) {
+			while (!this.demand.isEmpty() && now - this.demand.peek() > DEMAND_WINDOW_MILLIS) {
+				this.demand.poll();
+			}
+
+			return Math.min(this.demand.size(), this.config.warmPoolSize());
+		}
+
+		private void refill() {
+			while (true) {
+				synchronized (this) {
+					if (this.closed || this.entries.size() + this.pending >= this.getTargetSize(System.currentTimeMillis())) {
+						return;
+					}
+					this.pending += 1;
+				}
+
+				Entry entry = null;
+				try {
+					entry = Entry.create(this.config);
+				} catch (Throwable e) {
+					LOGGER.warn("Failed to create pooled console for '{}'", this.config.game(), e);
+				}
+
+				synchronized (this) {
+					this.pending -= 1;
+
+					if (entry == null) {
+						return;
+					} else if (this.closed) {
+						Entry.close(entry);
+						return;
+					}
+					this.entries.add(entry);
+				}
+			}
+		}
+
+		/**
+		 * @return whether this pool is empty and has no recent demand, so it can be removed
+		 */
+		private synchronized boolean evictIdle(long now) {
+			Long lastDemand = this.demand.peekLast();
+			int targetSize = lastDemand == null || now - lastDemand > IDLE_EVICTION_MILLIS ? 0 : this.getTargetSize(now);
+
+			// Shrink towards the current demand, dropping the oldest consoles first
+			while (this.entries.size() > targetSize) {
+				Entry.close(this.entries.poll());
+			}
+
+			if (this.entries.isEmpty() && this.pending == 0 && this.getTargetSize(now) == 0) {
+				this.closed = true;
+				return true;
+			}
+
+			return false;
+		}
+	}
+}
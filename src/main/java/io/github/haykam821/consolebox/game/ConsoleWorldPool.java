@@ -0,0 +1,111 @@
+package io.github.haykam821.consolebox.game;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.haykam821.consolebox.ConsoleBoxSettings;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import xyz.nucleoid.fantasy.Fantasy;
+import xyz.nucleoid.fantasy.RuntimeWorldHandle;
+
+/**
+ * Keeps void worlds ready for standalone consoles, with their camera and audio entities already spawned,
+ * so that opening a console does not create a world and closing it does not delete one.
+ *
+ * <p>Worlds are created on the server thread, at most one per tick while the pool is below its configured size.
+ * A world that is given back is reset by discarding every entity other than its own, and is deleted instead if the pool is full.
+ * The pool is only used from the server thread.
+ */
+public final class ConsoleWorldPool {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleWorldPool");
+
+	private static final Deque<PooledWorld> WORLDS = new ArrayDeque<>();
+
+	private ConsoleWorldPool() {
+		return;
+	}
+
+	/**
+	 * Takes a pooled world, or creates a new one if none is available.
+	 */
+	public static PooledWorld borrow(MinecraftServer server) {
+		PooledWorld world = WORLDS.pollFirst();
+		return world == null ? PooledWorld.create(server) : world;
+	}
+
+	/**
+	 * Resets a world after its console has closed and returns it to the pool.
+	 */
+	public static void giveBack(PooledWorld world) {
+		if (WORLDS.size() >= ConsoleBoxSettings.get().worldPoolSize()) {
+			world.delete();
+			return;
+		}
+
+		try {
+			world.reset();
+		} catch (RuntimeException exception) {
+			LOGGER.warn("Failed to reset pooled console world; deleting it instead", exception);
+			world.delete();
+			return;
+		}
+
+		WORLDS.addLast(world);
+	}
+
+	/**
+	 * Creates a world if the pool is below its configured size.
+	 */
+	public static void refill(MinecraftServer server) {
+		if (WORLDS.size() < ConsoleBoxSettings.get().worldPoolSize()) {
+			WORLDS.addLast(PooledWorld.create(server));
+		}
+	}
+
+	public static void clear() {
+		for (PooledWorld world : WORLDS) {
+			world.delete();
+		}
+
+		WORLDS.clear();
+	}
+
+	public record PooledWorld(RuntimeWorldHandle handle, ConsoleBoxGame.CabinetEntities entities) {
+		private static PooledWorld create(MinecraftServer server) {
+			RuntimeWorldHandle handle = Fantasy.get(server).openTemporaryWorld(ConsoleBoxGame.createWorldConfig(server));
+			return new PooledWorld(handle, ConsoleBoxGame.CabinetEntities.spawn(handle.asWorld()));
+		}
+
+		public ServerWorld asWorld() {
+			return this.handle.asWorld();
+		}
+
+		/**
+		 * Discards the entities that were added while the world was borrowed. The cabinet entities are moved into place when it is borrowed again.
+		 */
+		private void reset() {
+			List<Entity> discarded = new ArrayList<>();
+
+			for (Entity entity : this.asWorld().iterateEntities()) {
+				if (!this.entities.contains(entity) && !entity.isPlayer()) {
+					discarded.add(entity);
+				}
+			}
+
+			for (Entity entity : discarded) {
+				entity.discard();
+			}
+		}
+
+		private void delete() {
+			this.handle.delete();
+		}
+	}
+}
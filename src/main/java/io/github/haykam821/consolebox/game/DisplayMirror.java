@@ -0,0 +1,102 @@
+package io.github.haykam821.consolebox.game;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+import eu.pb4.mapcanvas.api.utils.VirtualDisplay;
+import io.github.haykam821.consolebox.game.render.DisplaySink;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+/**
+ * Shows players a screen in front of them that mirrors the console of another player, without joining its game space.
+ *
+ * <p>Each mirror is backed by a {@link DisplaySink}, so watching a console never runs its cart again, and every mirror
+ * of a console shares the map updates that are encoded for it. Mirrors are only used from the server thread.
+ */
+public final class DisplayMirror {
+	private static final int FRAME_RATE = 20;
+	private static final int DISTANCE = 3;
+
+	private static final Map<UUID, DisplayMirror> MIRRORS = new HashMap<>();
+
+	private final ServerPlayerEntity viewer;
+	private final ServerWorld world;
+	private final GameCanvas canvas;
+	private final DisplaySink sink;
+	private final VirtualDisplay display;
+
+	private DisplayMirror(ServerPlayerEntity viewer, GameCanvas canvas) {
+		this.viewer = viewer;
+		this.world = viewer.getServerWorld();
+		this.canvas = canvas;
+		this.sink = canvas.attachSink(FRAME_RATE);
+
+		Direction facing = viewer.getHorizontalFacing();
+		BlockPos pos = viewer.getBlockPos().offset(facing, DISTANCE).up(2).offset(facing.rotateYClockwise());
+
+		this.display = VirtualDisplay.builder(this.sink.getCanvas(), pos, facing.getOpposite())
+			.invisible()
+			.build();
+
+		this.display.addPlayer(viewer);
+		this.sink.addPlayer(viewer);
+	}
+
+	/**
+	 * Starts mirroring the console of a game to a player, replacing any console that the player was already watching.
+	 */
+	public static void watch(ServerPlayerEntity viewer, ConsoleBoxGame game) {
+		DisplayMirror.stop(viewer);
+		MIRRORS.put(viewer.getUuid(), new DisplayMirror(viewer, game.getCanvas()));
+	}
+
+	/**
+	 * @return whether the player was watching a console
+	 */
+	public static boolean stop(ServerPlayerEntity viewer) {
+		DisplayMirror mirror = MIRRORS.remove(viewer.getUuid());
+		if (mirror == null) {
+			return false;
+		}
+
+		mirror.destroy();
+		return true;
+	}
+
+	/**
+	 * Removes mirrors whose console has closed or whose viewer has left or changed worlds. This should be called every tick.
+	 */
+	public static void tick() {
+		Iterator<DisplayMirror> iterator = MIRRORS.values().iterator();
+
+		while (iterator.hasNext()) {
+			DisplayMirror mirror = iterator.next();
+
+			if (mirror.sink.isDestroyed() || mirror.viewer.isRemoved() || mirror.viewer.getServerWorld() != mirror.world) {
+				iterator.remove();
+				mirror.destroy();
+			}
+		}
+	}
+
+	public static void clear() {
+		for (DisplayMirror mirror : MIRRORS.values()) {
+			mirror.destroy();
+		}
+
+		MIRRORS.clear();
+	}
+
+	private void destroy() {
+		this.display.removePlayer(this.viewer);
+		this.display.destroy();
+
+		this.sink.removePlayer(this.viewer);
+		this.canvas.detachSink(this.sink);
+	}
+}
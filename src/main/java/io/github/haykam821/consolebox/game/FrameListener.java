@@ -0,0 +1,16 @@
+package io.github.haykam821.consolebox.game;
+
+/**
+ * Receives the output of a console after each update, for example to record it or to let a bot play.
+ */
+@FunctionalInterface
+public interface FrameListener {
+	/**
+	 * Called on the console thread after each update, while the cart is paused.
+	 *
+	 * <p>The view reads linear memory directly and is only valid during this call.
+	 * Listeners that process frames later should {@linkplain FrameView#copyFramebuffer(byte[]) copy} them first,
+	 * and should return quickly, as the cart waits for every listener.
+	 */
+	void onFrame(FrameView frame);
+}
@@ -0,0 +1,39 @@
+package io.github.haykam821.consolebox.game;
+
+/**
+ * A read-only view of the framebuffer and palette of a console, backed by its linear memory.
+ */
+public final class FrameView {
+	public static final int FRAMEBUFFER_SIZE = HardwareConstants.SCREEN_AREA / 4;
+	public static final int PALETTE_SIZE = 4;
+
+	private final GameMemory memory;
+
+	protected FrameView(GameMemory memory) {
+		this.memory = memory;
+	}
+
+	/**
+	 * @return the palette index, from {@code 0} to {@code 3}, of the pixel at the given position
+	 */
+	public int getPixel(int x, int y) {
+		int index = y * HardwareConstants.SCREEN_WIDTH + x;
+		return this.memory.getFramebuffer().getByte(index >>> 2) >>> ((index & 0b11) * 2) & 0b11;
+	}
+
+	/**
+	 * @return the color of a palette entry as {@code 0xRRGGBB}
+	 */
+	public int getPaletteColor(int index) {
+		return this.memory.readPaletteColor(index);
+	}
+
+	/**
+	 * Copies the packed framebuffer, which holds four two-bit pixels per byte with the leftmost pixel in the lowest bits.
+	 *
+	 * @param destination an array of at least {@link #FRAMEBUFFER_SIZE} bytes
+	 */
+	public void copyFramebuffer(byte[] destination) {
+		this.memory.getFramebuffer().copyTo(0, destination, 0, FRAMEBUFFER_SIZE);
+	}
+}
@@ -8,9 +8,15 @@ import io.github.haykam821.consolebox.game.audio.AudioChannel;
 import io.github.haykam821.consolebox.game.audio.AudioController;
 import io.github.haykam821.consolebox.game.audio.ToneDuty;
 import io.github.haykam821.consolebox.game.audio.TonePan;
-import io.github.haykam821.consolebox.game.palette.GamePalette;
+import io.github.haykam821.consolebox.game.render.DisplaySink;
+import io.github.haykam821.consolebox.game.render.FramePipeline;
 import io.github.haykam821.consolebox.game.render.FramebufferRendering;
-import io.github.kawamuray.wasmtime.Module;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWatchdog;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
+import io.github.haykam821.consolebox.game.runtime.EngineSettings;
+import io.github.haykam821.consolebox.resource.CartEntry;
+import io.github.haykam821.consolebox.resource.CompiledCart;
+import io.github.haykam821.consolebox.resource.ConsoleGameManager;
 import io.github.kawamuray.wasmtime.WasmFunctionError.I32ExitError;
 import io.github.kawamuray.wasmtime.WasmFunctionError.TrapError;
 import io.github.kawamuray.wasmtime.*;
@@ -26,10 +32,19 @@ import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 public class GameCanvas {
@@ -38,7 +53,7 @@ public class GameCanvas {
     private static final CanvasImage DEFAULT_BACKGROUND = readImage("default_background");
     private static final CanvasImage DEFAULT_OVERLAY = readImage("default_overlay");
     private static final int BACKGROUND_SCALE = 2;
-    private Throwable error;
+    private volatile Throwable error;
 
     private static CanvasImage readImage(String path) {
         CanvasImage temp;
@@ -48,7 +63,7 @@ public class GameCanvas {
         } catch (Throwable e) {
             temp = new CanvasImage(128, 128);
 
-            e.printStackTrace();
+            LOGGER.error("Failed to read background image '{}'", path, e);
         }
         return temp;
     }
@@ -64,46 +79,77 @@ public class GameCanvas {
     private static final int DRAW_OFFSET_X = (SECTION_WIDTH * 64 - HardwareConstants.SCREEN_WIDTH / 2);
     private static final int DRAW_OFFSET_Y = (SECTION_HEIGHT * 64 - HardwareConstants.SCREEN_HEIGHT / 2);
 
+    private static final CanvasImage[] STATIC_FRAMES = {
+            createStaticFrame(false),
+            createStaticFrame(true)
+    };
+
     private final ConsoleBoxConfig config;
 
-    private final Store<Void> store;
-    private final GameMemory memory;
+    private final CartEntry cart;
+    private volatile CompletableFuture<Void> preparation;
+    private volatile boolean prepared = false;
+
+    private Store<Void> store;
+    private Linker linker;
+    private final List<Func> funcs = new ArrayList<>();
+    private final Map<String, Global> globals = new LinkedHashMap<>();
+    private CompiledCart compiledCart;
+    /**
+     * The number of globals in the cart's module, which is kept while the console is hibernated, or -1 if it has not been compiled yet.
+     */
+    private volatile int globalCount = -1;
+    private GameMemory memory;
+    private volatile boolean closed = false;
+    @Nullable
+    private volatile Path hibernationFile;
+    private boolean resumed = false;
+    /**
+     * The state of the cart right after its start callback, which is kept while the console is hibernated.
+     */
+    @Nullable
+    private ConsoleSnapshot initialSnapshot;
+    private volatile long detachedAt = 0;
 
-    private final GamePalette palette;
     private final CombinedPlayerCanvas canvas;
+    private final FramePipeline pipeline;
 
-    private final WasmFunctions.Consumer0 startCallback;
-    private WasmFunctions.Consumer0 updateCallback;
+    private WasmFunctions.Consumer0 startCallback = EMPTY_CALLBACK;
+    private WasmFunctions.Consumer0 updateCallback = EMPTY_CALLBACK;
     private final AudioController audioController;
-    private SaveHandler saveHandler = SaveHandler.NO_OP;
-
-    public GameCanvas(ConsoleBoxConfig config, AudioController audioController) {
-        this.config = config;
-        this.audioController = audioController;
-        this.store = Store.withoutData();
-        this.memory = new GameMemory(this.store);
-
-        Engine engine = this.store.engine();
-
-        Linker linker = new Linker(this.store.engine());
-        this.defineImports(linker);
-
-        Module module = new Module(engine, config.getGameData());
-        linker.module(this.store, "", module);
-
-        this.palette = new GamePalette(this.memory);
-        this.canvas = DrawableCanvas.create(SECTION_WIDTH, SECTION_HEIGHT);
-        CanvasUtils.clear(this.canvas, CanvasColor.GRAY_HIGH);
+    private final SaveSlot saveSlot = new SaveSlot();
+
+    private final ByteBuffer previousFramebuffer = ByteBuffer.allocate(HardwareConstants.SCREEN_AREA / 4);
+    private final int[] previousPalette = new int[4];
+    private final ConsoleInput input = new ConsoleInput();
+    private final List<FrameListener> frameListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Actions on the cart requested by other threads, which are run by the console thread between two frames.
+     */
+    private final Queue<Request<?>> requests = new ConcurrentLinkedQueue<>();
+    private FrameView frameView;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile int turboMultiplier = 1;
+
+    /**
+     * Composites the background, overlay and control hints that surround the screen.
+     *
+     * <p>This frame only depends on whether the X and Z buttons are swapped, so it is rendered once for each variant
+     * and copied into the canvas of every console.
+     */
+    private static CanvasImage createStaticFrame(boolean swapXZ) {
+        CanvasImage frame = new CanvasImage(SECTION_WIDTH * MAP_SIZE, SECTION_HEIGHT * MAP_SIZE);
+        CanvasUtils.clear(frame, CanvasColor.GRAY_HIGH);
         if (DEFAULT_BACKGROUND != null) {
             var background = DEFAULT_BACKGROUND;
             var width = background.getWidth() * BACKGROUND_SCALE;
             var height = background.getHeight() * BACKGROUND_SCALE;
-            var repeatsX = Math.ceilDiv(this.canvas.getWidth(), width);
-            var repeatsY = Math.ceilDiv(this.canvas.getHeight(), height);
+            var repeatsX = Math.ceilDiv(frame.getWidth(), width);
+            var repeatsY = Math.ceilDiv(frame.getHeight(), height);
 
             for (int x = 0; x < repeatsX; x++) {
                 for (int y = 0; y < repeatsY; y++) {
-                    CanvasUtils.draw(this.canvas, x * width, y * height, width, height, background);
+                    CanvasUtils.draw(frame, x * width, y * height, width, height, background);
                 }
             }
         }
@@ -112,7 +158,7 @@ public class GameCanvas {
             var background = DEFAULT_OVERLAY;
             var width = background.getWidth() * BACKGROUND_SCALE;
             var height = background.getHeight() * BACKGROUND_SCALE;
-            CanvasUtils.draw(this.canvas, this.canvas.getWidth() / 2 - width / 2, this.canvas.getHeight() / 2 - height / 2, width, height, background);
+            CanvasUtils.draw(frame, frame.getWidth() / 2 - width / 2, frame.getHeight() / 2 - height / 2, width, height, background);
         }
 
         var text = """
@@ -122,7 +168,7 @@ public class GameCanvas {
                         ↓ | [S]
                         """;
 
-        if (this.config.swapXZ()) {
+        if (swapXZ) {
             text += """
                     X | [Shift]
                     Z | [Space]
@@ -134,14 +180,280 @@ public class GameCanvas {
                     """;
         }
 
-        DefaultFonts.VANILLA.drawText(this.canvas, text, DRAW_OFFSET_X - 78, DRAW_OFFSET_Y + HardwareConstants.SCREEN_HEIGHT - 59, 8, CanvasColor.BLACK_HIGH);
-        DefaultFonts.VANILLA.drawText(this.canvas, text, DRAW_OFFSET_X - 79, DRAW_OFFSET_Y + HardwareConstants.SCREEN_HEIGHT - 60, 8, CanvasColor.WHITE_HIGH);
+        DefaultFonts.VANILLA.drawText(frame, text, DRAW_OFFSET_X - 78, DRAW_OFFSET_Y + HardwareConstants.SCREEN_HEIGHT - 59, 8, CanvasColor.BLACK_HIGH);
+        DefaultFonts.VANILLA.drawText(frame, text, DRAW_OFFSET_X - 79, DRAW_OFFSET_Y + HardwareConstants.SCREEN_HEIGHT - 60, 8, CanvasColor.WHITE_HIGH);
+
+        return frame;
+    }
+
+    public GameCanvas(ConsoleBoxConfig config, AudioController audioController) {
+        this.config = config;
+        this.audioController = audioController;
+        this.cart = config.getCartEntry();
+
+        this.canvas = DrawableCanvas.create(SECTION_WIDTH, SECTION_HEIGHT);
+        this.pipeline = new FramePipeline(this.canvas, DRAW_OFFSET_X, DRAW_OFFSET_Y);
+
+        CanvasImage frame = STATIC_FRAMES[this.config.swapXZ() ? 1 : 0];
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                this.canvas.setRaw(x, y, frame.getRaw(x, y));
+            }
+        }
+    }
+
+    /**
+     * Compiles the cart if needed and links it on a worker thread, keeping the work off the server thread.
+     */
+    public CompletableFuture<Void> prepareAsync() {
+        this.preparation = CompletableFuture.runAsync(this::prepare, ConsoleWorkers.EXECUTOR);
+        return this.preparation;
+    }
+
+    private void prepare() {
+        ConsoleResourceTracker.track(this);
+
+        this.compiledCart = ConsoleGameManager.getModule(this.cart, this.config.getEngineSettings());
+        this.globalCount = this.compiledCart.getGlobalCount();
+        this.instantiate();
+
+        Path hibernationFile = this.hibernationFile;
+        if (hibernationFile != null) {
+            try {
+                this.restoreSnapshot(ConsoleHibernation.read(hibernationFile, this.globalCount));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            ConsoleHibernation.delete(hibernationFile);
+            this.hibernationFile = null;
+            this.resumed = true;
+            this.lastActivity = System.currentTimeMillis();
+        }
+
+        this.prepared = true;
+    }
+
+    /**
+     * Links a new instance of the compiled cart on a fresh store, releasing the previous instance if there is one.
+     */
+    private void instantiate() {
+        this.releaseInstance();
+
+        Engine engine = ConsoleWatchdog.getEngine(this.config.getEngineSettings());
+
+        this.store = ConsoleWatchdog.createStore(engine);
+        this.memory = new GameMemory(this.store);
+        this.frameView = new FrameView(this.memory);
+
+        this.linker = new Linker(engine);
+        this.defineImports(this.linker);
+        this.linker.module(this.store, "", this.compiledCart.getModule());
+
+        this.startCallback = this.getCallback(this.linker, "start");
+        this.updateCallback = this.getCallback(this.linker, "update");
+        this.collectGlobals(this.compiledCart.getModule());
+    }
+
+    private void collectGlobals(Module module) {
+        for (ExportType export : module.exports()) {
+            if (export.getType() == ExportType.Type.GLOBAL) {
+                this.linker.get(this.store, "", export.getName()).ifPresent(extern -> {
+                    this.globals.put(export.getName(), extern.global());
+                });
+            }
+        }
+    }
+
+    /**
+     * Captures the cart's state between two callbacks.
+     */
+    private ConsoleSnapshot captureSnapshot() {
+        Map<String, Val> values = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Global> global : this.globals.entrySet()) {
+            Val value = global.getValue().get(this.store);
+
+            if (ConsoleSnapshot.isSupported(value.getType())) {
+                values.put(global.getKey(), value);
+            }
+        }
+
+        return new ConsoleSnapshot(this.cart.hash(), this.memory.copyContents(), values);
+    }
+
+    /**
+     * Restores the cart's state from a snapshot, only writing globals whose value differs so that immutable globals are left alone.
+     */
+    private void restoreSnapshot(ConsoleSnapshot snapshot) {
+        this.memory.restoreContents(snapshot.memory());
+
+        for (Map.Entry<String, Val> value : snapshot.globals().entrySet()) {
+            Global global = this.globals.get(value.getKey());
+
+            if (global != null) {
+                Val current = global.get(this.store);
+
+                if (current.getType() != value.getValue().getType() || ConsoleSnapshot.toBits(current) != ConsoleSnapshot.toBits(value.getValue())) {
+                    global.set(this.store, value.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cart's state to disk and releases every native resource held by this console.
+     * The console is prepared again from the written state the next time it is started, without calling the start callback.
+     *
+     * @return whether the console was hibernated, which requires a running cart without an error whose state can be captured
+     */
+    public boolean hibernate() {
+        synchronized (this) {
+            if (!this.prepared || this.closed || this.error != null || !this.canCaptureState()) {
+                return false;
+            }
+
+            try {
+                this.hibernationFile = ConsoleHibernation.write(this.captureSnapshot());
+            } catch (IOException e) {
+                LOGGER.warn("Failed to hibernate console game '{}'", this.config.game(), e);
+
+                // Waits for another idle period before trying again
+                this.lastActivity = System.currentTimeMillis();
+                return false;
+            }
+
+            this.releaseNatives();
+            this.preparation = null;
+
+            return true;
+        }
+    }
+
+    /**
+     * @return whether the cart's entire state can be captured and restored into a new instance, which requires every mutable global
+     * to have been exported when the cart was compiled
+     */
+    public boolean canCaptureState() {
+        CompiledCart compiledCart = this.compiledCart;
+        return compiledCart != null && compiledCart.canCaptureState();
+    }
+
+    public int getGlobalCount() {
+        return this.globalCount;
+    }
+
+    public boolean isHibernated() {
+        return this.hibernationFile != null;
+    }
+
+    /**
+     * Releases every native resource held by this console. Consoles cannot be used after being closed.
+     */
+    public void close() {
+        if (this.preparation != null) {
+            // Resources are still being created while the cart is prepared
+            this.preparation.exceptionally(e -> null).join();
+        }
+
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            this.releaseNatives();
+            this.pipeline.detachSinks();
+            this.cancelRequests();
+
+            Path hibernationFile = this.hibernationFile;
+            if (hibernationFile != null) {
+                ConsoleHibernation.delete(hibernationFile);
+                this.hibernationFile = null;
+            }
+        }
+    }
+
+    private void releaseNatives() {
+        this.prepared = false;
+        this.releaseInstance();
+
+        if (this.compiledCart != null) {
+            this.compiledCart.release();
+        }
+        this.compiledCart = null;
 
-        this.startCallback = this.getCallback(linker, "start");
-        this.updateCallback = this.getCallback(linker, "update");
+        ConsoleResourceTracker.untrack(this);
+    }
+
+    /**
+     * Releases the instance of the cart, but not the compiled cart that it was linked from.
+     */
+    private void releaseInstance() {
+        this.startCallback = EMPTY_CALLBACK;
+        this.updateCallback = EMPTY_CALLBACK;
+
+        if (this.linker != null) {
+            this.linker.close();
+        }
+        for (Func func : this.funcs) {
+            func.close();
+        }
+        for (Global global : this.globals.values()) {
+            global.close();
+        }
+        if (this.memory != null) {
+            this.memory.close();
+        }
+        if (this.store != null) {
+            this.store.close();
+        }
+
+        this.linker = null;
+        this.funcs.clear();
+        this.globals.clear();
+        this.memory = null;
+        this.frameView = null;
+        this.store = null;
+    }
+
+    /**
+     * Marks this console as no longer belonging to a game space, after which it is expected to be closed shortly.
+     */
+    public void detach() {
+        this.detachedAt = System.currentTimeMillis();
+    }
+
+    public long getDetachedAt() {
+        return this.detachedAt;
+    }
+
+    /**
+     * @return the approximate number of native bytes held by this console's linear memory and compiled module
+     */
+    public long getNativeBytes() {
+        long bytes = 0;
+
+        if (this.memory != null) {
+            bytes += HardwareConstants.MEMORY_PAGES * HardwareConstants.PAGE_SIZE;
+        }
+        if (this.compiledCart != null) {
+            bytes += this.compiledCart.getSize();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return the approximate number of heap bytes held by this console's canvas and frame tracking
+     */
+    public long getHeapBytes() {
+        return (long) SECTION_WIDTH * SECTION_HEIGHT * MAP_SIZE * MAP_SIZE + this.previousFramebuffer.capacity();
     }
 
     private void defineImport(Linker linker, String name, Func func) {
+        this.funcs.add(func);
+
         Extern extern = Extern.fromFunc(func);
         linker.define(this.store, "env", name, extern);
     }
@@ -181,18 +493,18 @@ public class GameCanvas {
     }
 
     private void blitSub(int spriteAddress, int x, int y, int width, int height, int sourceX, int sourceY, int stride, int flags) {
-        ByteBuffer buffer = this.memory.getFramebuffer();
+        MemoryView buffer = this.memory.getFramebuffer();
         int drawColors = this.memory.readDrawColors();
         boolean bpp2 = (flags & 1) > 0;
         boolean flipX = (flags & 2) > 0;
         boolean flipY = (flags & 4) > 0;
         boolean rotate = (flags & 8) > 0;
 
-        FramebufferRendering.drawSprite(buffer, drawColors, this.memory.getBuffer(), spriteAddress, x, y, width, height, sourceX, sourceY, stride, bpp2, flipX, flipY, rotate);
+        FramebufferRendering.drawSprite(buffer, drawColors, this.memory.getView(), spriteAddress, x, y, width, height, sourceX, sourceY, stride, bpp2, flipX, flipY, rotate);
     }
 
     private void line(int x1, int y1, int x2, int y2) {
-        ByteBuffer buffer = this.memory.getFramebuffer();
+        MemoryView buffer = this.memory.getFramebuffer();
         int drawColors = this.memory.readDrawColors();
 
         FramebufferRendering.drawLine(buffer, drawColors, x1, y1, x2, y2);
@@ -205,7 +517,7 @@ public class GameCanvas {
             strokeColor -= 1;
             strokeColor &= 0x3;
 
-            ByteBuffer buffer = this.memory.getFramebuffer();
+            MemoryView buffer = this.memory.getFramebuffer();
             FramebufferRendering.drawHLineUnclipped(buffer, strokeColor, x, y, x + length);
         }
     }
@@ -221,7 +533,7 @@ public class GameCanvas {
             strokeColor -= 1;
             strokeColor &= 0x3;
 
-            ByteBuffer buffer = this.memory.getFramebuffer();
+            MemoryView buffer = this.memory.getFramebuffer();
 
             int startY = Math.max(0, y);
             int endY = Math.min(HardwareConstants.SCREEN_HEIGHT, y + length);
@@ -233,14 +545,14 @@ public class GameCanvas {
     }
 
     private void oval(int x, int y, int width, int height) {
-        ByteBuffer buffer = this.memory.getFramebuffer();
+        MemoryView buffer = this.memory.getFramebuffer();
         int drawColors = this.memory.readDrawColors();
 
         FramebufferRendering.drawOval(buffer, drawColors, x, y, width, height);
     }
 
     private void rect(int x, int y, int width, int height) {
-        ByteBuffer buffer = this.memory.getFramebuffer();
+        MemoryView buffer = this.memory.getFramebuffer();
         int drawColors = this.memory.readDrawColors();
 
         byte fillColor = (byte) (drawColors & 0b1111);
@@ -250,22 +562,16 @@ public class GameCanvas {
     }
 
     // This function needs to work on raw bytes, as Java strips invalid chars
-    private void drawText(byte[] string, int x, int y) {
-        ByteBuffer buffer = this.memory.getFramebuffer();
-        int drawColors = this.memory.readDrawColors();
-        FramebufferRendering.drawText(buffer, drawColors, string, x, y);
-    }
-
     private void text(int string, int x, int y) {
-        this.drawText(this.memory.readStringRaw(string), x, y);
+        ConsoleText.text(this.memory.getView(), this.memory.getFramebuffer(), this.memory.readDrawColors(), string, x, y);
     }
 
     private void textUtf8(int string, int length, int x, int y) {
-        this.drawText(this.memory.readUnterminatedStringRaw8(string, length), x, y);
+        ConsoleText.textUtf8(this.memory.getView(), this.memory.getFramebuffer(), this.memory.readDrawColors(), string, length, x, y);
     }
 
     private void textUtf16(int string, int length, int x, int y) {
-        this.drawText(this.memory.readUnterminatedStringRaw16LE(string, length), x, y);
+        ConsoleText.textUtf16(this.memory.getView(), this.memory.getFramebuffer(), this.memory.readDrawColors(), string, length, x, y);
     }
 
     private void tone(int frequency, int duration, int volume, int flags) {
@@ -305,127 +611,358 @@ public class GameCanvas {
     }
 
     private int diskr(int address, int size) {
-        if (!this.saveHandler.canUse()) {
-            return 0;
-        }
-        var data = this.saveHandler.getData();
-        if (data == null) {
-            return 0;
-        }
-
-        this.memory.getBuffer().put(address, data, 0, size);
-        // Intentionally empty as persistent storage is unsupported
-        return 0;
+        return this.saveSlot.read(this.memory.getView(), address, size);
     }
 
     private int diskw(int address, int size) {
-        if (!this.saveHandler.canUse()) {
-            return 0;
-        }
-        try {
-            var bytes = new byte[Math.min(size, 1024)];
-            this.memory.getBuffer().get(address, bytes);
-            this.saveHandler.setData(ByteBuffer.wrap(bytes));
-        } catch (Throwable e) {
-            this.error = e;
-        }
-        return 0;
+        return this.saveSlot.write(this.memory.getView(), address, size);
     }
 
     private void trace(int string) {
-        LOGGER.trace("From game: {}", this.memory.readString(string));
+        ConsoleText.trace(LOGGER, this.memory.getView(), string);
     }
 
     private void traceUtf8(int string, int length) {
-        LOGGER.trace("From game: {}", this.memory.readUnterminatedString(string, length, StandardCharsets.UTF_8));
+        ConsoleText.traceUtf8(LOGGER, this.memory.getView(), string, length);
     }
 
     private void traceUtf16(int string, int length) {
-        LOGGER.trace("From game: {}", this.memory.readUnterminatedString(string, length, StandardCharsets.UTF_16LE));
+        ConsoleText.traceUtf16(LOGGER, this.memory.getView(), string, length);
     }
 
     private void tracef(int string, int stack) {
-        LOGGER.trace("From game (unformatted): {}", this.memory.readString(string));
+        ConsoleText.tracef(LOGGER, this.memory.getView(), string);
     }
 
     // Behavior
     private void update() {
         if (!this.memory.readSystemPreserveFramebuffer()) {
-            ByteBuffer buffer = this.memory.getFramebuffer();
-            for (int index = 0; index < buffer.limit(); index++) {
-                buffer.put(index, (byte) 0x0);
-            }
+            MemoryView buffer = this.memory.getFramebuffer();
+            buffer.fill(0, buffer.size(), (byte) 0x0);
         }
 
+        ConsoleWatchdog.arm(this.store, ConsoleWatchdog.UPDATE_DEADLINE_MILLIS);
         this.updateCallback.accept();
-    }
 
-    public void render() {
-        ByteBuffer buffer = this.memory.getFramebuffer();
-        int index = 0;
+        this.notifyFrameListeners();
+    }
 
-        for (int y = 0; y < HardwareConstants.SCREEN_HEIGHT; y++) {
-            for (int x = 0; x < HardwareConstants.SCREEN_WIDTH; x++) {
-                int colorAddress = index >>> 3;
-                byte color = (byte) (buffer.get(colorAddress) >>> (index % 8) & 0b11);
+    private void notifyFrameListeners() {
+        if (this.frameListeners.isEmpty()) {
+            return;
+        }
 
-                this.canvas.set(x + DRAW_OFFSET_X,
-                        y + DRAW_OFFSET_Y,
-                        this.palette.getColor(color));
-                index += 2;
+        for (FrameListener listener : this.frameListeners) {
+            try {
+                listener.onFrame(this.frameView);
+            } catch (Throwable e) {
+                LOGGER.warn("Frame listener {} failed for console game '{}'", listener, this.config.game(), e);
             }
         }
-        /*this.canvas.set(Short.reverseBytes(this.memory.getBuffer().getShort(0x001a)) + DRAW_OFFSET_X,
-                Short.reverseBytes(this.memory.getBuffer().getShort(0x001c)) + DRAW_OFFSET_Y, CanvasColor.RED_HIGH);*/
     }
 
-    public void updateGamepad(int id, boolean forward, boolean left, boolean backward, boolean right, boolean isSneaking, boolean isJumping) {
-        synchronized (this) {
-            this.memory.updateGamepad(id, forward, left, backward, right, isSneaking, isJumping);
-        }
+    /**
+     * Adds a listener that receives the framebuffer and palette after each update.
+     * The framebuffer is only copied if the listener copies it itself.
+     */
+    public void addFrameListener(FrameListener listener) {
+        this.frameListeners.add(listener);
     }
 
-    public void updateMousePosition(int id, int mouseX, int mouseY) {
-        synchronized (this) {
-            //if (this.mouse == null) {
-            ////    this.mouse = this.canvas.createIcon(MapDecorationTypes.PLAYER, (mouseX + DRAW_OFFSET_X) * 2, (mouseY + DRAW_OFFSET_Y) * 2, (byte) 0, null);
-            //} else {
-            //    this.mouse.move((mouseX + DRAW_OFFSET_X) * 2, (mouseY + DRAW_OFFSET_Y) * 2, this.mouse.getRotation());
-            //    System.out.println((mouseX + DRAW_OFFSET_X) * 2);
-            //    System.out.println((mouseY + DRAW_OFFSET_Y) * 2);
-            //}
-            this.memory.updateMousePosition(id, mouseX, mouseY);
+    public void removeFrameListener(FrameListener listener) {
+        this.frameListeners.remove(listener);
+    }
+
+    /**
+     * Latches the gamepad state of a player, which is copied into memory at the start of the next frame.
+     * This never blocks, so it is safe to call from the server thread while a frame is running.
+     *
+     * @return whether the input changed, which also ends any idle period
+     */
+    public boolean updateGamepad(int id, boolean forward, boolean left, boolean backward, boolean right, boolean isSneaking, boolean isJumping) {
+        return this.markActive(this.input.setGamepad(id, forward, left, backward, right, isSneaking, isJumping));
+    }
+
+    /**
+     * Sets the gamepad state of a player through the same latch as player input, for bots and scripted input.
+     *
+     * @param buttons the pressed buttons, as a combination of the {@code BUTTON_} constants in {@link ConsoleInput}
+     * @return whether the input changed, which also ends any idle period
+     */
+    public boolean injectGamepad(int id, int buttons) {
+        return this.markActive(this.input.setGamepad(id, buttons));
+    }
+
+    public boolean updateMousePosition(int id, int mouseX, int mouseY) {
+        return this.markActive(this.input.setMousePosition(id, mouseX, mouseY));
+    }
+
+    public boolean updateMouseState(int id, boolean leftClick, boolean rightClick, boolean middleClick) {
+        return this.markActive(this.input.setMouseState(id, leftClick, rightClick, middleClick));
+    }
+
+    /**
+     * Ends any idle period, as if input had just been received.
+     */
+    public void markActive() {
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    private boolean markActive(boolean active) {
+        if (active) {
+            this.lastActivity = System.currentTimeMillis();
         }
+        return active;
     }
 
-    public void updateMouseState(int id, boolean leftClick, boolean rightClick, boolean middleClick) {
-        synchronized (this) {
-            this.memory.updateMouseState(id, leftClick, rightClick, middleClick);
+    /**
+     * Records the current frame and palette, treating any difference from the previous frame as activity.
+     */
+    private void trackFrameActivity() {
+        MemoryView framebuffer = this.memory.getFramebuffer();
+        boolean changed = framebuffer.mismatch(this.previousFramebuffer) != -1;
+
+        if (changed) {
+            framebuffer.copyTo(0, this.previousFramebuffer.array(), 0, this.previousFramebuffer.capacity());
+        }
+
+        for (int index = 0; index < this.previousPalette.length; index++) {
+            int color = this.memory.readPaletteColor(index);
+
+            if (this.previousPalette[index] != color) {
+                this.previousPalette[index] = color;
+                changed = true;
+            }
         }
+
+        this.markActive(changed);
+    }
+
+    /**
+     * @return whether neither input nor output has changed for longer than the configured idle timeout
+     */
+    public boolean isIdle() {
+        return this.config.idleTimeout() > 0 && this.getIdleMillis() > this.config.idleTimeout() * 1000L;
+    }
+
+    /**
+     * @return how long neither input nor output has changed
+     */
+    public long getIdleMillis() {
+        return System.currentTimeMillis() - this.lastActivity;
     }
 
+    /**
+     * Runs the updates of a frame and publishes the result, leaving its conversion to map data to the encoder pool.
+     */
     public void tick(long lastTime) {
         synchronized (this) {
+            this.runRequests();
+
             if (this.error != null) {
-                this.drawError(error);
-            } else {
+                this.showError(this.error);
+            } else if (this.prepared) {
                 try {
-                    this.update();
-                    this.palette.update();
-                    this.render();
+                    // Only the last of several turbo updates is converted and sent
+                    int updates = this.turboMultiplier;
+                    this.input.apply(this.memory);
+                    for (int update = 0; update < updates; update++) {
+                        this.update();
+                    }
+
+                    this.trackFrameActivity();
+                    this.pipeline.publish(this.memory);
                 } catch (Throwable e) {
                     this.error = e;
                 }
             }
             //DefaultFonts.VANILLA.drawText(this.canvas, "TIME: +" + lastTime, 0, 0, 8, CanvasColor.RED_HIGH);
-            this.canvas.sendUpdates();
         }
     }
 
+    /**
+     * Sets how many updates are run per frame, limited by the configured maximum.
+     *
+     * @return the multiplier that was applied
+     */
+    public int setTurboMultiplier(int multiplier) {
+        this.turboMultiplier = MathHelper.clamp(multiplier, 1, this.config.maxTurboMultiplier());
+        return this.turboMultiplier;
+    }
+
+    public int getTurboMultiplier() {
+        return this.turboMultiplier;
+    }
+
     public void clearError() {
         this.error = null;
     }
 
+    public boolean hasError() {
+        return this.error != null;
+    }
+
+    /**
+     * Restarts the cart on a new instance between two frames, clearing any error.
+     * The state right after the start callback is restored if it can be captured entirely, and the start callback is run again otherwise.
+     *
+     * @return a future completed with whether the cart was reset, which requires its start callback to have succeeded
+     */
+    public CompletableFuture<Boolean> reset() {
+        return this.request(() -> this.restartInstance(true));
+    }
+
+    /**
+     * Hands the cart over to a new controller between two frames, attaching their save handler and then restarting the cart
+     * on a new instance, so that neither the memory nor the storage of the previous controller's session carries over.
+     * Changes to the previous storage should be flushed beforehand, as any that are left are discarded.
+     * This should be called on the server thread, which prefetches the new controller's storage.
+     *
+     * @return a future completed with whether the cart was restarted, which requires its start callback to have succeeded before
+     */
+    public CompletableFuture<Boolean> restart(SaveHandler handler) {
+        SaveSlot.Attachment attachment = SaveSlot.prepare(handler);
+
+        return this.request(() -> {
+            this.saveSlot.attach(attachment);
+            return this.restartInstance(false);
+        });
+    }
+
+    /**
+     * Links a new instance of the cart, which also resets mutable globals that are not exported.
+     *
+     * @param restoreSnapshot whether to restore the state right after the start callback if it can be captured entirely,
+     * rather than running the start callback again
+     */
+    private boolean restartInstance(boolean restoreSnapshot) {
+        if (!this.prepared || this.initialSnapshot == null) {
+            return false;
+        }
+
+        try {
+            this.instantiate();
+
+            if (restoreSnapshot && this.canCaptureState()) {
+                this.restoreSnapshot(this.initialSnapshot);
+            } else {
+                this.input.apply(this.memory);
+                ConsoleWatchdog.arm(this.store, ConsoleWatchdog.START_DEADLINE_MILLIS);
+                this.startCallback.accept();
+                this.initialSnapshot = this.captureSnapshot();
+            }
+        } catch (Throwable e) {
+            this.error = e;
+            return false;
+        }
+
+        this.error = null;
+        this.markActive(true);
+
+        return true;
+    }
+
+    /**
+     * Queues an action on the cart for the console thread, which runs it before the next frame while holding the cart.
+     * The action is never run if the console is closed first, in which case the future is cancelled.
+     */
+    private <T> CompletableFuture<T> request(Supplier<T> action) {
+        Request<T> request = new Request<>(action, new CompletableFuture<>());
+        this.requests.add(request);
+
+        if (this.closed) {
+            this.cancelRequests();
+        }
+
+        return request.future();
+    }
+
+    private void runRequests() {
+        Request<?> request;
+        while ((request = this.requests.poll()) != null) {
+            request.run();
+        }
+    }
+
+    private void cancelRequests() {
+        Request<?> request;
+        while ((request = this.requests.poll()) != null) {
+            request.future().cancel(false);
+        }
+    }
+
+    /**
+     * Captures the cart's state on the console thread between two frames, which only holds it up for as long as copying its memory takes.
+     *
+     * @return a future completed with the captured state, or with {@code null} if the cart is not running or its state cannot be captured entirely
+     */
+    public CompletableFuture<ConsoleSnapshot> saveState() {
+        return this.request(() -> {
+            if (!this.prepared || this.error != null || this.initialSnapshot == null || !this.canCaptureState()) {
+                return null;
+            }
+
+            return this.captureSnapshot();
+        });
+    }
+
+    /**
+     * Restores a state captured by {@link #saveState()} on the console thread between two frames, clearing any error.
+     *
+     * @return a future completed with whether the state was restored, which requires a running cart whose state can be captured entirely
+     * and a state captured from the same cart with memory of the same size
+     */
+    public CompletableFuture<Boolean> loadState(ConsoleSnapshot snapshot) {
+        return this.request(() -> {
+            if (!this.prepared || this.initialSnapshot == null || !this.canCaptureState()) {
+                return false;
+            } else if (!snapshot.cart().equals(this.cart.hash()) || snapshot.memory().length != this.memory.getView().size()) {
+                return false;
+            }
+
+            try {
+                this.restoreSnapshot(snapshot);
+            } catch (Throwable e) {
+                this.error = e;
+                return false;
+            }
+
+            this.error = null;
+            this.markActive(true);
+
+            return true;
+        });
+    }
+
+    public CartEntry getCartEntry() {
+        return this.cart;
+    }
+
+    /**
+     * Replaces the screen with a status message, used while the cart is not running yet.
+     */
+    public void drawStatus(String title, String message) {
+        synchronized (this.canvas) {
+            CanvasUtils.fill(this.canvas, DRAW_OFFSET_X, DRAW_OFFSET_Y,
+                    HardwareConstants.SCREEN_WIDTH + DRAW_OFFSET_X, HardwareConstants.SCREEN_HEIGHT + DRAW_OFFSET_Y, CanvasColor.BLACK_LOW);
+
+            var titleWidth = DefaultFonts.VANILLA.getTextWidth(title, 16);
+            DefaultFonts.VANILLA.drawText(this.canvas, title, (HardwareConstants.SCREEN_WIDTH - titleWidth) / 2 + DRAW_OFFSET_X, 56 + DRAW_OFFSET_Y, 16, CanvasColor.WHITE_HIGH);
+
+            var messageWidth = DefaultFonts.VANILLA.getTextWidth(message, 8);
+            DefaultFonts.VANILLA.drawText(this.canvas, message, (HardwareConstants.SCREEN_WIDTH - messageWidth) / 2 + DRAW_OFFSET_X, 84 + DRAW_OFFSET_Y, 8, CanvasColor.GRAY_HIGH);
+
+            this.canvas.sendUpdates();
+        }
+    }
+
+    private void showError(Throwable e) {
+        synchronized (this.canvas) {
+            this.drawError(e);
+            this.canvas.sendUpdates();
+        }
+    }
+
     private void drawError(Throwable e) {
         var width = DefaultFonts.VANILLA.getTextWidth("ERROR!", 16);
 
@@ -477,22 +1014,71 @@ public class GameCanvas {
     }
 
     public void start() {
+        // Hibernated consoles keep showing their last frame while they are restored
+        boolean resuming = this.isHibernated();
+
+        if (this.preparation == null) {
+            this.prepareAsync();
+        }
+
+        if (!this.preparation.isDone() && !resuming) {
+            this.drawStatus("Loading", this.config.game().toString());
+        }
+
+        try {
+            this.preparation.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                this.error = e.getCause();
+                this.showError(this.error);
+            }
+
+            LOGGER.error("Failed to prepare console game '{}'", this.config.game(), e.getCause());
+            return;
+        }
+
         synchronized (this) {
             try {
-                this.startCallback.accept();
-                this.palette.update();
-                this.render();
+                if (this.resumed) {
+                    // The cart was already started before it was hibernated
+                    this.resumed = false;
+                } else {
+                    this.input.apply(this.memory);
+                    ConsoleWatchdog.arm(this.store, ConsoleWatchdog.START_DEADLINE_MILLIS);
+                    this.startCallback.accept();
+                    this.initialSnapshot = this.captureSnapshot();
+                }
+                this.pipeline.publish(this.memory);
             } catch (Throwable e) {
                 this.error = e;
-                this.drawError(e);
-                e.printStackTrace();
+                this.showError(e);
+                LOGGER.error("Failed to start console game '{}'", this.config.game(), e);
                 this.updateCallback = EMPTY_CALLBACK;
             }
         }
     }
 
+    /**
+     * Sets where the cart's persistent storage is loaded from and flushed to. This should be called on the server thread.
+     */
     public void setSaveHandler(SaveHandler handler) {
-        this.saveHandler = handler;
+        this.saveSlot.flush();
+        this.saveSlot.attach(SaveSlot.prepare(handler));
+    }
+
+    /**
+     * Writes changes to the cart's persistent storage to its save handler. This should be called on the server thread.
+     */
+    public void flushSave() {
+        this.saveSlot.flush();
+    }
+
+    /**
+     * Checks again whether the save handler can be used, which the console thread only reads from a cached flag.
+     * This should be called on the server thread.
+     */
+    public void refreshSave() {
+        this.saveSlot.refresh();
     }
 
 
@@ -514,9 +1100,38 @@ public class GameCanvas {
         return this.canvas;
     }
 
+    /**
+     * Mirrors the frames of this console to a new display sink, without running the cart a second time.
+     * The caller builds displays for the sink's canvas and manages its viewers.
+     *
+     * @param maxFrameRate the most frames per second sent to the sink's viewers
+     */
+    public DisplaySink attachSink(int maxFrameRate) {
+        return this.pipeline.attachSink(maxFrameRate);
+    }
+
+    public void detachSink(DisplaySink sink) {
+        this.pipeline.detachSink(sink);
+    }
+
+    private record Request<T>(Supplier<T> action, CompletableFuture<T> future) {
+        private void run() {
+            try {
+                this.future.complete(this.action.get());
+            } catch (Throwable e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+    }
+
     private Consumer0 getCallback(Linker linker, String name) {
         return linker.get(this.store, "", name)
-                .map(extern -> WasmFunctions.consumer(this.store, extern.func()))
+                .map(extern -> {
+                    Func func = extern.func();
+                    this.funcs.add(func);
+
+                    return WasmFunctions.consumer(this.store, func);
+                })
                 .orElse(EMPTY_CALLBACK);
     }
 }
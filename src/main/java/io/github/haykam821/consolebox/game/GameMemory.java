@@ -1,9 +1,5 @@
 package io.github.haykam821.consolebox.game;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-
 import io.github.haykam821.consolebox.mixin.MemoryTypeAccessor;
 import io.github.kawamuray.wasmtime.Extern;
 import io.github.kawamuray.wasmtime.Memory;
@@ -26,35 +22,52 @@ public final class GameMemory {
 
 	private final Memory memory;
 
-	private final ByteBuffer buffer;
-	private final ByteBuffer framebuffer;
+	private final MemoryView view;
+	private final MemoryView framebuffer;
 	protected GameMemory(Store<Void> store) {
 		this.memory = GameMemory.createMemory(store, HardwareConstants.MEMORY_PAGES);
 
-		this.buffer = memory.buffer(store);
-		this.framebuffer = this.buffer.slice(FRAMEBUFFER_ADDRESS, FRAMEBUFFER_SIZE);
+		this.view = new MemoryView(memory.buffer(store));
+		this.framebuffer = this.view.slice(FRAMEBUFFER_ADDRESS, FRAMEBUFFER_SIZE);
 
 		this.initializeMemory();
 	}
 
-	public ByteBuffer getBuffer() {
-		return this.buffer;
+	public MemoryView getView() {
+		return this.view;
 	}
 
 	public Extern createExtern() {
 		return Extern.fromMemory(this.memory);
 	}
 
-	public ByteBuffer getFramebuffer() {
+	/**
+	 * @return a copy of the entire linear memory
+	 */
+	public byte[] copyContents() {
+		byte[] contents = new byte[this.view.size()];
+		this.view.copyTo(0, contents, 0, contents.length);
+
+		return contents;
+	}
+
+	/**
+	 * Replaces the entire linear memory with contents previously copied from memory of the same size.
+	 */
+	public void restoreContents(byte[] contents) {
+		if (contents.length != this.view.size()) {
+			throw new IllegalArgumentException("Expected " + this.view.size() + " bytes of memory but got " + contents.length);
+		}
+
+		this.view.copyFrom(0, contents, 0, contents.length);
+	}
+
+	public MemoryView getFramebuffer() {
 		return this.framebuffer;
 	}
 
 	public int readColor(int start) {
-		int r = this.buffer.get(start) & 0xFF;
-		int g = this.buffer.get(start + 1) & 0xFF;
-		int b = this.buffer.get(start + 2) & 0xFF;
-
-		return r | g << 8 | b << 16;
+		return this.view.getInt(start) & 0xFFFFFF;
 	}
 
 	public int readPaletteColor(int index) {
@@ -62,113 +75,38 @@ public final class GameMemory {
 	}
 
 	public byte readSystemFlags() {
-		return this.buffer.get(SYSTEM_FLAGS_ADDRESS);
+		return this.view.getByte(SYSTEM_FLAGS_ADDRESS);
 	}
 
 	public int readDrawColors() {
-		return (this.buffer.get(DRAW_COLORS_ADDRESS + 1) << 8) + this.buffer.get(DRAW_COLORS_ADDRESS);
+		return Short.toUnsignedInt(this.view.getShort(DRAW_COLORS_ADDRESS));
 	}
 
 	public boolean readSystemPreserveFramebuffer() {
 		return (this.readSystemFlags() & 1) > 0;
 	}
 
-	public String readString(int start) {
-		return new String(readStringRaw(start), StandardCharsets.US_ASCII);
-	}
-	public byte[] readStringRaw(int start) {
-		int length = 0;
-
-		while (this.buffer.hasRemaining()) {
-			byte character = this.buffer.get(start + length);
-
-			if (character == 0x00) {
-				byte[] bytes = new byte[length];
-				this.buffer.get(start, bytes, 0, length);
-				return bytes;
-			} else {
-				length += 1;
-			}
-		}
-
-		return new byte[0];
-	}
-
-	public byte[] readUnterminatedStringRaw8(int start, int length) {
-		var bytes = new byte[length];
-		for (int i = 0; i < length; i++) {
-			bytes[i] = this.buffer.get(start + i);
-		}
-		return bytes;
-	}
-
-	public byte[] readUnterminatedStringRaw16LE(int start, int length) {
-		length /= 2;
-		var bytes = new byte[length];
-		for (int i = 0; i < length; i++) {
-			bytes[i] = this.buffer.get(start + i * 2);
-		}
-		return bytes;
+	public void writeGamepad(int id, byte gamepad) {
+		this.view.putByte(GAMEPADS_ADDRESS + id, gamepad);
 	}
 
-	public String readUnterminatedString(int start, int length, Charset charset) {
-		return charset.decode(this.buffer.slice(start, length)).toString();
+	public void writeMouse(short x, short y, byte buttons) {
+		this.view.putShort(MOUSE_X_ADDRESS, x);
+		this.view.putShort(MOUSE_Y_ADDRESS, y);
+		this.view.putByte(MOUSE_BUTTONS_ADDRESS, buttons);
 	}
 
-	public ByteBuffer readSprite(int start, int width, int height, int bit) {
-		return this.buffer.slice(start, width * height * bit);
-	}
-
-	public void updateGamepad(int id, boolean forward, boolean left, boolean backward, boolean right, boolean isSneaking, boolean isJumping) {
-		byte gamepad = 0;
-
-		if (isJumping) gamepad |= 1; // Z
-		if (isSneaking) gamepad |= 2; // X
-
-		if (left) gamepad |= 16; // Left
-		if (right) gamepad |= 32; // Right
-		if (forward) gamepad |= 64; // Up
-		if (backward) gamepad |= 128; // Down
-
-		this.buffer.put(GAMEPADS_ADDRESS + id, gamepad);
-	}
-
-	public void updateMousePosition(int id, int mouseX, int mouseY) {
-		if (id != 0) {
-			return;
-		}
-		this.buffer.putShort(MOUSE_X_ADDRESS, Short.reverseBytes((short) mouseX));
-		this.buffer.putShort(MOUSE_Y_ADDRESS, Short.reverseBytes((short) mouseY));
-	}
-
-	public void updateMouseState(int id, boolean leftClick, boolean rightClick, boolean mouseMiddle) {
-		if (id != 0) {
-			return;
-		}
-		byte buttons = 0;
-
-		if (leftClick) {
-			buttons |= 1;
-		}
-
-		if (rightClick) {
-			buttons |= 2;
-		}
+	private void initializeMemory() {
+		this.view.putInt(PALETTE_ADDRESS, 0xE0F8CF); // Dark green
+		this.view.putInt(PALETTE_ADDRESS + 4, 0x86C06C); // Light green
+		this.view.putInt(PALETTE_ADDRESS + 8, 0x306850); // Dull green
+		this.view.putInt(PALETTE_ADDRESS + 12, 0x071821); // Dark teal
 
-		if (mouseMiddle) {
-			buttons |= 4;
-		}
-		this.buffer.put(MOUSE_BUTTONS_ADDRESS, buttons);
+		this.view.putShort(DRAW_COLORS_ADDRESS, (short) 0x0312);
 	}
 
-	private void initializeMemory() {
-		this.buffer.putInt(PALETTE_ADDRESS, 0xCFF8E000); // Dark green
-		this.buffer.putInt(PALETTE_ADDRESS + 4, 0x6CC08600); // Light green
-		this.buffer.putInt(PALETTE_ADDRESS + 8, 0x50683000); // Dull green
-		this.buffer.putInt(PALETTE_ADDRESS + 12, 0x21180700); // Dark teal
-
-		this.buffer.put(DRAW_COLORS_ADDRESS, (byte) 0x12);
-		this.buffer.put(DRAW_COLORS_ADDRESS + 1, (byte) 0x03);
+	public void close() {
+		this.memory.close();
 	}
 
 	@Override
@@ -6,6 +6,7 @@ public final class HardwareConstants {
 	}
 
 	public static final int MEMORY_PAGES = 1;
+	public static final int PAGE_SIZE = 64 * 1024;
 
 	public static final int SCREEN_WIDTH = 160;
 	public static final int SCREEN_HEIGHT = SCREEN_WIDTH;
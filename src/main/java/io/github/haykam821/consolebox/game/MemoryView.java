@@ -0,0 +1,112 @@
+package io.github.haykam821.consolebox.game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Typed, little-endian access to a region of a cart's linear memory.
+ *
+ * <p>Multi-byte values are accessed through byte buffer view var handles, which read and write a value in a single
+ * access in the byte order of WebAssembly instead of assembling it from individual bytes.
+ */
+public final class MemoryView {
+	private static final VarHandle SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final ByteBuffer buffer;
+
+	public MemoryView(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public int size() {
+		return this.buffer.limit();
+	}
+
+	public MemoryView slice(int address, int length) {
+		return new MemoryView(this.buffer.slice(address, length));
+	}
+
+	public byte getByte(int address) {
+		return this.buffer.get(address);
+	}
+
+	public int getUnsignedByte(int address) {
+		return this.buffer.get(address) & 0xFF;
+	}
+
+	public void putByte(int address, byte value) {
+		this.buffer.put(address, value);
+	}
+
+	public short getShort(int address) {
+		return (short) SHORT.get(this.buffer, address);
+	}
+
+	public void putShort(int address, short value) {
+		SHORT.set(this.buffer, address, value);
+	}
+
+	public int getInt(int address) {
+		return (int) INT.get(this.buffer, address);
+	}
+
+	public void putInt(int address, int value) {
+		INT.set(this.buffer, address, value);
+	}
+
+	public void copyTo(int address, byte[] destination, int offset, int length) {
+		this.buffer.get(address, destination, offset, length);
+	}
+
+	public void copyFrom(int address, byte[] source, int offset, int length) {
+		this.buffer.put(address, source, offset, length);
+	}
+
+	public void copyFrom(int address, ByteBuffer source, int offset, int length) {
+		this.buffer.put(address, source, offset, length);
+	}
+
+	/**
+	 * Sets every byte in the given range to a value, eight bytes at a time where possible.
+	 */
+	public void fill(int address, int length, byte value) {
+		int end = address + length;
+		long pattern = (value & 0xFFL) * 0x0101010101010101L;
+
+		for (; address + Long.BYTES <= end; address += Long.BYTES) {
+			LONG.set(this.buffer, address, pattern);
+		}
+		for (; address < end; address++) {
+			this.buffer.put(address, value);
+		}
+	}
+
+	/**
+	 * @return the index of the first byte that differs from the given buffer, or {@code -1} if there is none
+	 */
+	public int mismatch(ByteBuffer other) {
+		return this.buffer.mismatch(other);
+	}
+
+	/**
+	 * @return the index of the first zero byte at or after the given address, or {@code -1} if there is none
+	 */
+	public int indexOfZero(int address) {
+		for (int index = address; index < this.buffer.limit(); index++) {
+			if (this.buffer.get(index) == 0) {
+				return index;
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return "MemoryView{size=" + this.size() + "}";
+	}
+}
@@ -1,18 +1,24 @@
 package io.github.haykam821.consolebox.game;
 
 import com.mojang.serialization.Codec;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
 import eu.pb4.playerdata.api.PlayerDataApi;
 import eu.pb4.playerdata.api.storage.NbtCodecDataStorage;
 import eu.pb4.playerdata.api.storage.PlayerDataStorage;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
 import xyz.nucleoid.plasmid.api.game.GameSpace;
 import xyz.nucleoid.plasmid.api.util.PlayerRef;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface SaveHandler {
     SaveHandler NO_OP = new NoOp();
@@ -21,10 +27,26 @@ public interface SaveHandler {
         return new Player(gameSpace, PlayerRef.of(player), identifier);
     }
 
+    /**
+     * Creates a save handler backed by the cart's own save store, which does not depend on any player being online.
+     *
+     * @param key the player or cabinet that the save belongs to
+     */
+    static SaveHandler stored(Identifier game, UUID key) {
+        return new Stored(game, key);
+    }
+
     @Nullable
     ByteBuffer getData();
     boolean setData(@Nullable ByteBuffer data);
 
+    /**
+     * Starts reading the data of this save handler. This should be called on the server thread.
+     */
+    default CompletableFuture<ByteBuffer> load() {
+        return CompletableFuture.completedFuture(this.canUse() ? this.getData() : null);
+    }
+
     boolean canUse();
 
     record NoOp() implements SaveHandler {
@@ -88,4 +110,54 @@ public interface SaveHandler {
             return ref.isOnline(gameSpace);
         }
     }
+
+    record Stored(Identifier game, UUID key) implements SaveHandler {
+        /**
+         * Reads the save on a worker once the writes queued before it have reached the disk.
+         */
+        @Override
+        public CompletableFuture<ByteBuffer> load() {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return CartSaveStore.get(this.game);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, ConsoleWorkers.EXECUTOR).thenCompose(store -> store.load(this.key));
+        }
+
+        @Nullable
+        public ByteBuffer getData() {
+            try {
+                return CartSaveStore.get(this.game).read(this.key);
+            } catch (IOException e) {
+                LoggerFactory.getLogger("SaveHandler").error("Failed to read save of '{}' for {}", this.game, this.key, e);
+                return null;
+            }
+        }
+
+        /**
+         * Queues the change, which is forced to disk on a worker rather than on the calling thread.
+         */
+        public boolean setData(@Nullable ByteBuffer data) {
+            try {
+                CartSaveStore store = CartSaveStore.get(this.game);
+
+                if (data != null) {
+                    store.queueWrite(this.key, data);
+                } else {
+                    store.queueDelete(this.key);
+                }
+                return true;
+            } catch (IOException e) {
+                LoggerFactory.getLogger("SaveHandler").error("Failed to open save store of '{}' to write the save for {}", this.game, this.key, e);
+                return false;
+            }
+        }
+
+        @Override
+        public boolean canUse() {
+            return true;
+        }
+    }
 }
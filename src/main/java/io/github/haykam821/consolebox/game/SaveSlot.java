@@ -0,0 +1,178 @@
+package io.github.haykam821.consolebox.game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the persistent storage of a cart in memory, so that {@code diskr} and {@code diskw} never reach the save handler from the console thread.
+ *
+ * <p>The contents of a save handler are prefetched when it is {@link #prepare(SaveHandler) prepared} on the server thread, and whether
+ * it can be used is cached there, as the save handler may only be touched by the server thread. Changed contents are written behind to
+ * the save handler by {@link #flush()}, which should be called on the server thread on an interval and when the session ends.
+ * Writes that do not change the contents are skipped. The lock of a slot is never held across a call to its save handler.
+ */
+public final class SaveSlot {
+	private static final Logger LOGGER = LoggerFactory.getLogger("SaveSlot");
+
+	/**
+	 * The amount of persistent storage available to a cart.
+	 */
+	public static final int SIZE = 1024;
+
+	private volatile Attachment attachment = new Attachment(SaveHandler.NO_OP, CompletableFuture.completedFuture(null), false);
+	private volatile boolean usable = false;
+
+	private Attachment loadedFrom = null;
+	private byte[] data = new byte[SIZE];
+	private byte[] scratch = new byte[SIZE];
+	private int length = 0;
+	private boolean dirty = false;
+
+	/**
+	 * Starts loading the contents of a save handler. This should be called on the server thread.
+	 */
+	public static Attachment prepare(SaveHandler handler) {
+		CompletableFuture<ByteBuffer> contents = handler.load().exceptionally(throwable -> {
+			LOGGER.error("Failed to load cart storage", throwable);
+			return null;
+		});
+
+		return new Attachment(handler, contents, handler.canUse());
+	}
+
+	/**
+	 * Switches to a prepared save handler, whose contents are copied in by the next read.
+	 * Contents that have not been flushed to the previous save handler are discarded.
+	 */
+	public synchronized void attach(Attachment attachment) {
+		this.attachment = attachment;
+		this.usable = attachment.usable();
+		this.loadedFrom = null;
+		this.dirty = false;
+		this.length = 0;
+	}
+
+	/**
+	 * Checks again whether the save handler can be used. This should be called on the server thread.
+	 */
+	public void refresh() {
+		Attachment attachment = this.attachment;
+		boolean usable = attachment.handler().canUse();
+
+		synchronized (this) {
+			// The result is stale if another save handler was attached in the meantime
+			if (this.attachment == attachment) {
+				this.usable = usable;
+			}
+		}
+	}
+
+	/**
+	 * Copies the contents into linear memory, waiting for the prefetched contents of the save handler if they have not arrived yet.
+	 *
+	 * @return the number of bytes read
+	 */
+	public int read(MemoryView view, int address, int size) {
+		if (!this.usable) {
+			return 0;
+		}
+
+		Attachment attachment = this.attachment;
+		ByteBuffer stored = attachment.contents().join();
+
+		synchronized (this) {
+			if (this.attachment != attachment) {
+				return 0;
+			}
+
+			if (this.loadedFrom != attachment) {
+				this.length = stored == null ? 0 : Math.min(stored.remaining(), SIZE);
+				if (stored != null) {
+					stored.get(stored.position(), this.data, 0, this.length);
+				}
+
+				this.loadedFrom = attachment;
+			}
+
+			int length = SaveSlot.clamp(view, address, Math.min(size, this.length));
+			view.copyFrom(address, this.data, 0, length);
+
+			return length;
+		}
+	}
+
+	/**
+	 * Replaces the contents with a region of linear memory.
+	 *
+	 * @return the number of bytes written
+	 */
+	public synchronized int write(MemoryView view, int address, int size) {
+		if (!this.usable) {
+			return 0;
+		}
+
+		int length = SaveSlot.clamp(view, address, Math.min(size, SIZE));
+		view.copyTo(address, this.scratch, 0, length);
+
+		if (!Arrays.equals(this.scratch, 0, length, this.data, 0, this.length)) {
+			byte[] data = this.data;
+			this.data = this.scratch;
+			this.scratch = data;
+
+			this.length = length;
+			this.dirty = true;
+		}
+
+		// The written contents replace the stored contents entirely, so they no longer need to be loaded
+		this.loadedFrom = this.attachment;
+
+		return length;
+	}
+
+	/**
+	 * Writes changed contents to the save handler. This should be called on the server thread.
+	 */
+	public void flush() {
+		SaveHandler handler;
+		byte[] contents;
+
+		synchronized (this) {
+			if (!this.dirty) {
+				return;
+			}
+
+			handler = this.attachment.handler();
+			contents = Arrays.copyOf(this.data, this.length);
+			this.dirty = false;
+		}
+
+		try {
+			if (!handler.setData(ByteBuffer.wrap(contents))) {
+				LOGGER.warn("Discarded {} bytes of cart storage as the save handler could not be used", contents.length);
+			}
+		} catch (Throwable e) {
+			LOGGER.error("Failed to flush cart storage", e);
+		}
+	}
+
+	/**
+	 * Limits a length so that the region starting at the given address stays within linear memory.
+	 */
+	private static int clamp(MemoryView view, int address, int length) {
+		if (address < 0 || address >= view.size() || length <= 0) {
+			return 0;
+		}
+
+		return Math.min(length, view.size() - address);
+	}
+
+	/**
+	 * A save handler along with its prefetched contents and whether it could be used when it was prepared.
+	 */
+	public record Attachment(SaveHandler handler, CompletableFuture<ByteBuffer> contents, boolean usable) {
+	}
+}
@@ -0,0 +1,65 @@
+package io.github.haykam821.consolebox.game.palette;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.pb4.mapcanvas.api.core.CanvasColor;
+import eu.pb4.mapcanvas.api.utils.CanvasUtils;
+
+/**
+ * Maps RGB colors to their closest canvas colors through a table precomputed at 5 bits per channel,
+ * so that carts which animate their palette do not search every canvas color whenever a palette color changes.
+ */
+public final class ColorLookup {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ColorLookup");
+
+	private static final int CHANNEL_BITS = 5;
+	private static final int CHANNEL_SHIFT = 8 - CHANNEL_BITS;
+	private static final int CHANNEL_MASK = (1 << CHANNEL_BITS) - 1;
+
+	private static final CanvasColor[] TABLE = ColorLookup.createTable();
+
+	private ColorLookup() {
+		return;
+	}
+
+	/**
+	 * Ensures that the table has been built, which takes a noticeable amount of time, so that the first palette lookup does not.
+	 */
+	public static void initialize() {
+		return;
+	}
+
+	public static CanvasColor getColor(int rgb) {
+		int red = (rgb >> 16 & 0xFF) >> CHANNEL_SHIFT;
+		int green = (rgb >> 8 & 0xFF) >> CHANNEL_SHIFT;
+		int blue = (rgb & 0xFF) >> CHANNEL_SHIFT;
+
+		return TABLE[red << CHANNEL_BITS * 2 | green << CHANNEL_BITS | blue];
+	}
+
+	private static CanvasColor[] createTable() {
+		long start = System.nanoTime();
+		CanvasColor[] table = new CanvasColor[1 << CHANNEL_BITS * 3];
+
+		for (int index = 0; index < table.length; index++) {
+			int red = ColorLookup.expand(index >> CHANNEL_BITS * 2 & CHANNEL_MASK);
+			int green = ColorLookup.expand(index >> CHANNEL_BITS & CHANNEL_MASK);
+			int blue = ColorLookup.expand(index & CHANNEL_MASK);
+
+			table[index] = CanvasUtils.findClosestColor(red << 16 | green << 8 | blue);
+		}
+
+		LOGGER.debug("Built color lookup table with {} entries in {} ms", table.length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return table;
+	}
+
+	/**
+	 * Widens a channel to 8 bits by repeating its high bits, so that the darkest and brightest values stay at the ends of the range.
+	 */
+	private static int expand(int channel) {
+		return channel << CHANNEL_SHIFT | channel >> CHANNEL_BITS - CHANNEL_SHIFT;
+	}
+}
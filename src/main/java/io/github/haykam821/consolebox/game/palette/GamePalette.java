@@ -3,45 +3,43 @@ package io.github.haykam821.consolebox.game.palette;
 import java.util.Arrays;
 
 import eu.pb4.mapcanvas.api.core.CanvasColor;
-import io.github.haykam821.consolebox.game.GameMemory;
 
 /**
  * Manages bindings between the raw palette and canvas colors.
+ *
+ * <p>Changed colors are mapped through {@link ColorLookup} in place, so updating the palette never allocates.
  */
 public final class GamePalette {
-	private final GameMemory memory;
+	private static final int SIZE = 4;
 
-	public GamePalette(GameMemory memory) {
-		this.memory = memory;
-	}
-
-	private final PaletteEntry[] entries = {
-		new PaletteEntry(null, 0),
-		new PaletteEntry(null, 0),
-		new PaletteEntry(null, 0),
-		new PaletteEntry(null, 0)
-	};
+	private final int[] raws = new int[SIZE];
+	private final CanvasColor[] colors = new CanvasColor[SIZE];
 
 	private void updateEntry(int index, int raw) {
-		PaletteEntry entry = this.entries[index];
-
-		if (entry.color() == null || entry.raw() != raw) {
-			this.entries[index] = new PaletteEntry(raw);
+		if (this.colors[index] == null || this.raws[index] != raw) {
+			this.raws[index] = raw;
+			this.colors[index] = PaletteEntry.findColor(raw);
 		}
 	}
 
-	public void update() {
-		for (int index = 0; index < this.entries.length; index++) {
-			this.updateEntry(index, memory.readPaletteColor(index));
+	public void update(int[] colors) {
+		for (int index = 0; index < SIZE; index++) {
+			this.updateEntry(index, colors[index]);
 		}
 	}
 
 	public CanvasColor getColor(int index) {
-		return this.entries[index].color();
+		return this.colors[index];
 	}
 
 	@Override
 	public String toString() {
-		return "GamePalette" + Arrays.toString(this.entries);
+		PaletteEntry[] entries = new PaletteEntry[SIZE];
+
+		for (int index = 0; index < SIZE; index++) {
+			entries[index] = new PaletteEntry(this.colors[index], this.raws[index]);
+		}
+
+		return "GamePalette" + Arrays.toString(entries);
 	}
 }
@@ -1,7 +1,6 @@
 package io.github.haykam821.consolebox.game.palette;
 
 import eu.pb4.mapcanvas.api.core.CanvasColor;
-import eu.pb4.mapcanvas.api.utils.CanvasUtils;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.util.Util;
@@ -15,6 +14,14 @@ public record PaletteEntry(CanvasColor color, int raw) {
 	});
 
 	public PaletteEntry(int raw) {
-		this(OVERRIDES.containsKey(raw) ? OVERRIDES.get(raw) : CanvasUtils.findClosestColor(raw), raw);
+		this(PaletteEntry.findColor(raw), raw);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return the canvas color that a raw palette color is displayed as
+	 */
+	public static CanvasColor findColor(int raw) {
+		CanvasColor color = OVERRIDES.get(raw);
+		return color == null ? ColorLookup.getColor(raw) : color;
+	}
+}
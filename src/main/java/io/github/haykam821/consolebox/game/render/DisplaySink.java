@@ -0,0 +1,62 @@
+package io.github.haykam821.consolebox.game.render;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import eu.pb4.mapcanvas.api.core.PlayerCanvas;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * An additional screen that mirrors the frames of a running console, such as a showcase display in a lobby.
+ *
+ * <p>Each sink has its own viewers. Sinks of the same console with the same frame rate share a canvas, which only covers the screen,
+ * so a frame is converted to map colors once per console and encoded into map updates once per frame rate.
+ * Sinks with a lower frame rate simply skip frames.
+ */
+public final class DisplaySink {
+	private final SinkGroup group;
+	private final Set<ServerPlayerEntity> players = new CopyOnWriteArraySet<>();
+	private volatile boolean destroyed = false;
+
+	DisplaySink(SinkGroup group) {
+		this.group = group;
+	}
+
+	/**
+	 * @return the canvas to build virtual displays for, which is two maps wide and tall
+	 */
+	public PlayerCanvas getCanvas() {
+		return this.group.getCanvas();
+	}
+
+	public void addPlayer(ServerPlayerEntity player) {
+		if (this.players.add(player)) {
+			this.group.addPlayer(player);
+		}
+	}
+
+	public void removePlayer(ServerPlayerEntity player) {
+		if (this.players.remove(player)) {
+			this.group.removePlayer(this, player);
+		}
+	}
+
+	/**
+	 * @return whether this sink has been detached, either directly or because its console has closed
+	 */
+	public boolean isDestroyed() {
+		return this.destroyed;
+	}
+
+	Set<ServerPlayerEntity> getPlayers() {
+		return this.players;
+	}
+
+	SinkGroup getGroup() {
+		return this.group;
+	}
+
+	void markDestroyed() {
+		this.destroyed = true;
+	}
+}
@@ -0,0 +1,26 @@
+package io.github.haykam821.consolebox.game.render;
+
+import io.github.haykam821.consolebox.game.GameMemory;
+import io.github.haykam821.consolebox.game.HardwareConstants;
+
+/**
+ * A copy of the framebuffer and palette at the end of an update, which can be encoded while the cart keeps running.
+ */
+public final class Frame {
+	private static final int PALETTE_SIZE = 4;
+
+	final byte[] framebuffer = new byte[HardwareConstants.SCREEN_AREA / 4];
+	final int[] palette = new int[PALETTE_SIZE];
+
+	Frame() {
+		return;
+	}
+
+	void capture(GameMemory memory) {
+		memory.getFramebuffer().copyTo(0, this.framebuffer, 0, this.framebuffer.length);
+
+		for (int index = 0; index < PALETTE_SIZE; index++) {
+			this.palette[index] = memory.readPaletteColor(index);
+		}
+	}
+}
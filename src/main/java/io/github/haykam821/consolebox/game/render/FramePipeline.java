@@ -0,0 +1,175 @@
+package io.github.haykam821.consolebox.game.render;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.pb4.mapcanvas.api.core.CombinedPlayerCanvas;
+import io.github.haykam821.consolebox.game.GameMemory;
+import io.github.haykam821.consolebox.game.HardwareConstants;
+import io.github.haykam821.consolebox.game.palette.GamePalette;
+import io.github.haykam821.consolebox.game.runtime.ConsoleWorkers;
+
+/**
+ * Hands finished frames from a console thread to the shared encoder pool, which converts them to map colors and sends them to viewers.
+ *
+ * <p>Two frames are recycled between the console thread and the encoder. If the encoder falls behind,
+ * the frame that is waiting to be encoded is replaced by the newer one, so the console thread never waits for encoding.
+ * The canvas is locked while a frame is drawn to it, so other drawing to the canvas should lock it as well.
+ *
+ * <p>Each frame is converted to map colors once, then copied into the console's canvas and the canvas of each frame rate
+ * that {@link DisplaySink sinks} are attached with.
+ */
+public final class FramePipeline {
+	private static final Logger LOGGER = LoggerFactory.getLogger("FramePipeline");
+
+	private final CombinedPlayerCanvas canvas;
+	private final int offsetX;
+	private final int offsetY;
+
+	private final GamePalette palette = new GamePalette();
+	private final byte[] colors = new byte[HardwareConstants.SCREEN_AREA];
+	private final List<SinkGroup> sinkGroups = new CopyOnWriteArrayList<>();
+
+	private final Queue<Frame> free = new ConcurrentLinkedQueue<>(List.of(new Frame(), new Frame()));
+	private final AtomicReference<Frame> pending = new AtomicReference<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	public FramePipeline(CombinedPlayerCanvas canvas, int offsetX, int offsetY) {
+		this.canvas = canvas;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+	}
+
+	/**
+	 * Mirrors the frames of this console to a new sink, which shares its canvas with the other sinks of the same frame rate.
+	 */
+	public synchronized DisplaySink attachSink(int maxFrameRate) {
+		for (SinkGroup group : this.sinkGroups) {
+			if (group.getMaxFrameRate() == maxFrameRate) {
+				return group.attach();
+			}
+		}
+
+		SinkGroup group = new SinkGroup(maxFrameRate);
+		this.sinkGroups.add(group);
+
+		return group.attach();
+	}
+
+	public synchronized void detachSink(DisplaySink sink) {
+		SinkGroup group = sink.getGroup();
+
+		if (this.sinkGroups.contains(group) && group.detach(sink)) {
+			this.sinkGroups.remove(group);
+		}
+	}
+
+	public synchronized void detachSinks() {
+		for (SinkGroup group : this.sinkGroups) {
+			for (DisplaySink sink : group.getSinks()) {
+				group.detach(sink);
+			}
+
+			// Destroys the group even if it had no sinks
+			group.detach(null);
+		}
+
+		this.sinkGroups.clear();
+	}
+
+	/**
+	 * Copies the current framebuffer and palette and schedules them to be encoded.
+	 * This should only be called by the thread running the cart.
+	 */
+	public void publish(GameMemory memory) {
+		Frame frame = this.acquire();
+		frame.capture(memory);
+
+		Frame replaced = this.pending.getAndSet(frame);
+		if (replaced != null) {
+			this.free.add(replaced);
+		}
+
+		if (this.scheduled.compareAndSet(false, true)) {
+			ConsoleWorkers.ENCODER.execute(this::drain);
+		}
+	}
+
+	private Frame acquire() {
+		while (true) {
+			Frame frame = this.free.poll();
+
+			if (frame == null) {
+				// Takes back the frame that the encoder has not started on yet
+				frame = this.pending.getAndSet(null);
+			}
+
+			if (frame != null) {
+				return frame;
+			}
+
+			// The encoder is between returning a frame and taking the pending one
+			Thread.onSpinWait();
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			Frame frame = this.pending.getAndSet(null);
+
+			if (frame == null) {
+				this.scheduled.set(false);
+
+				// A frame may have been published after the pending frame was found to be empty
+				if (this.pending.get() == null || !this.scheduled.compareAndSet(false, true)) {
+					return;
+				}
+				continue;
+			}
+
+			try {
+				this.encode(frame);
+			} catch (Throwable e) {
+				LOGGER.error("Failed to encode console frame", e);
+			} finally {
+				this.free.add(frame);
+			}
+		}
+	}
+
+	private void encode(Frame frame) {
+		this.palette.update(frame.palette);
+
+		int index = 0;
+		for (int pixel = 0; pixel < this.colors.length; pixel++) {
+			byte color = (byte) (frame.framebuffer[index >>> 3] >>> (index % 8) & 0b11);
+
+			this.colors[pixel] = this.palette.getColor(color).getRenderColor();
+			index += 2;
+		}
+
+		synchronized (this.canvas) {
+			int pixel = 0;
+			for (int y = 0; y < HardwareConstants.SCREEN_HEIGHT; y++) {
+				for (int x = 0; x < HardwareConstants.SCREEN_WIDTH; x++) {
+					this.canvas.setRaw(x + this.offsetX, y + this.offsetY, this.colors[pixel]);
+					pixel += 1;
+				}
+			}
+
+			this.canvas.sendUpdates();
+		}
+
+		long now = System.nanoTime();
+		for (SinkGroup group : this.sinkGroups) {
+			group.accept(this.colors, now);
+		}
+	}
+}
@@ -1,8 +1,7 @@
 package io.github.haykam821.consolebox.game.render;
 
-import java.nio.ByteBuffer;
-
 import io.github.haykam821.consolebox.game.HardwareConstants;
+import io.github.haykam821.consolebox.game.MemoryView;
 
 /**
  * Rendering utilities for drawing to a framebuffer.
@@ -16,7 +15,7 @@ public final class FramebufferRendering {
 		return;
 	}
 
-	public static void drawPoint(ByteBuffer buffer, byte color, int x, int y) {
+	public static void drawPoint(MemoryView buffer, byte color, int x, int y) {
 		if (x >= 0 && x < HardwareConstants.SCREEN_WIDTH && y >= 0 && y < HardwareConstants.SCREEN_HEIGHT) {
 			int index = HardwareConstants.SCREEN_WIDTH * y + x;
 			int address = index >>> 2;
@@ -24,17 +23,17 @@ public final class FramebufferRendering {
 			int shift = (index % 4) * 2;
 			int mask = 0x3 << shift;
 
-			buffer.put(address, (byte) ((color << shift) | (buffer.get(address) & ~mask)));
+			buffer.putByte(address, (byte) ((color << shift) | (buffer.getByte(address) & ~mask)));
 		}
 	}
 
-	public static void drawPointUnclipped(ByteBuffer buffer, byte color, int x, int y) {
+	public static void drawPointUnclipped(MemoryView buffer, byte color, int x, int y) {
 		//if (x >= 0 && x < HardwareConstants.SCREEN_WIDTH && y >= 0 && y < HardwareConstants.SCREEN_HEIGHT) {
 			FramebufferRendering.drawPoint(buffer, color, x, y);
 		//}
 	}
 
-	public static void drawHLineFast(ByteBuffer buffer, byte color, int startX, int y, int endX) {
+	public static void drawHLineFast(MemoryView buffer, byte color, int startX, int y, int endX) {
 		int fillEnd = endX - (endX & 3);
 		int fillStart = Math.min((startX + 3) & ~3, fillEnd);
 
@@ -47,11 +46,7 @@ public final class FramebufferRendering {
 			int to = (HardwareConstants.SCREEN_WIDTH * y + fillEnd) >>> 2;
 			byte fillColor = (byte) (color * 0b01010101);
 
-			for (int index = from; index < to; index++) {
-				if (index < buffer.limit()) {
-					buffer.put(index, fillColor);
-				}
-			}
+			buffer.fill(from, Math.min(to, buffer.size()) - from, fillColor);
 
 			startX = fillEnd;
 		}
@@ -61,7 +56,7 @@ public final class FramebufferRendering {
 		}
 	}
 
-	public static void drawHLineUnclipped(ByteBuffer buffer, byte color, int startX, int y, int endX) {
+	public static void drawHLineUnclipped(MemoryView buffer, byte color, int startX, int y, int endX) {
 		if (y >= 0 && y < HardwareConstants.SCREEN_HEIGHT) {
 			if (startX < 0) {
 				startX = 0;
@@ -75,7 +70,7 @@ public final class FramebufferRendering {
 		}
 	}
 
-	public static void drawLine(ByteBuffer buffer, int drawColors, int x1, int y1, int x2, int y2) {
+	public static void drawLine(MemoryView buffer, int drawColors, int x1, int y1, int x2, int y2) {
 		byte dc0 = (byte) (drawColors & 0xf);
 		if (dc0 == 0) {
 			return;
@@ -113,7 +108,7 @@ public final class FramebufferRendering {
 		}
 	}
 
-	public static void drawRect(ByteBuffer buffer, byte fillColor, byte strokeColor, int x, int y, int width, int height) {
+	public static void drawRect(MemoryView buffer, byte fillColor, byte strokeColor, int x, int y, int width, int height) {
 		int startX = Math.max(0, x);
 		int startY = Math.max(0, y);
 		int endXUnclamped = x + width;
@@ -160,7 +155,7 @@ public final class FramebufferRendering {
 		}
 	}
 
-	public static void drawOval(ByteBuffer buffer, int drawColors, int startX, int startY, int width, int height) {
+	public static void drawOval(MemoryView buffer, int drawColors, int startX, int startY, int width, int height) {
 		int dc0 = drawColors & 0xf;
 		int dc1 = (drawColors >> 4) & 0xf;
 
@@ -230,11 +225,11 @@ public final class FramebufferRendering {
 		}
 	}
 
-	private static byte getInbound(ByteBuffer buffer, int index) {
-		return index < 0 || index >= buffer.limit() ? 0 : buffer.get(index);
+	private static byte getInbound(MemoryView buffer, int index) {
+		return index < 0 || index >= buffer.size() ? 0 : buffer.getByte(index);
 	}
 
-	public static void drawSprite(ByteBuffer buffer, int drawColors, ByteBuffer spriteBuffer, int spriteAddress, int startX, int startY, int width, int height, int sourceX, int sourceY, int stride, boolean bpp2, boolean flipX, boolean flipY, boolean rotate) {
+	public static void drawSprite(MemoryView buffer, int drawColors, MemoryView spriteBuffer, int spriteAddress, int startX, int startY, int width, int height, int sourceX, int sourceY, int stride, boolean bpp2, boolean flipX, boolean flipY, boolean rotate) {
 		// Clip rectangle to screen
 		int clipXMin, clipYMin, clipXMax, clipYMax;
 		if (rotate) {
@@ -283,11 +278,14 @@ public final class FramebufferRendering {
 		}
 	}
 
-	public static void drawText(ByteBuffer buffer, int drawColors, byte[] string, int x, int y) {
+	/**
+	 * Draws text read directly from memory, one character every {@code stride} bytes, until the end address or a null character is reached.
+	 */
+	public static void drawText(MemoryView buffer, int drawColors, MemoryView string, int start, int end, int stride, int x, int y) {
 		int currentX = x;
 
-		for (int index = 0; index < string.length; index++) {
-			int character = Byte.toUnsignedInt(string[index]);
+		for (int address = start; address < end; address += stride) {
+			int character = string.getUnsignedByte(address);
 
 			if (character == '\0') {
 				return;
@@ -1,5 +1,6 @@
 package io.github.haykam821.consolebox.game.render;
 
+import io.github.haykam821.consolebox.game.MemoryView;
 import net.minecraft.util.Util;
 
 import java.nio.ByteBuffer;
@@ -15,7 +16,7 @@ public final class GameFont {
 	 * <a href="https://github.com/aduros/wasm4/blob/a3f857a25f522072478e4ff0a3c53823974e72a4/runtimes/native/src/framebuffer.c#L8-L233">official WASM-4 runtimes</a>,
 	 * which are licensed under the ISC license.
 	 */
-	static final ByteBuffer FONT = ByteBuffer.wrap(new byte[] {
+	static final MemoryView FONT = new MemoryView(ByteBuffer.wrap(new byte[] {
 		(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
 		(byte) 0xC7, (byte) 0xC7, (byte) 0xC7, (byte) 0xCF, (byte) 0xCF, (byte) 0xFF, (byte) 0xCF, (byte) 0xFF,
 		(byte) 0x93, (byte) 0x93, (byte) 0x93, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
@@ -240,7 +241,7 @@ public final class GameFont {
 		(byte) 0xF7, (byte) 0xEF, (byte) 0x39, (byte) 0x39, (byte) 0x39, (byte) 0x81, (byte) 0xF9, (byte) 0x83,
 		(byte) 0x3F, (byte) 0x3F, (byte) 0x03, (byte) 0x39, (byte) 0x39, (byte) 0x03, (byte) 0x3F, (byte) 0x3F,
 		(byte) 0x93, (byte) 0xFF, (byte) 0x39, (byte) 0x39, (byte) 0x39, (byte) 0x81, (byte) 0xF9, (byte) 0x83
-	});
+	}));
 
 	private GameFont() {
 		return;
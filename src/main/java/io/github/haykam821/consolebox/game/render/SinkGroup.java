@@ -0,0 +1,120 @@
+package io.github.haykam821.consolebox.game.render;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.Nullable;
+
+import eu.pb4.mapcanvas.api.core.CanvasColor;
+import eu.pb4.mapcanvas.api.core.CombinedPlayerCanvas;
+import eu.pb4.mapcanvas.api.core.DrawableCanvas;
+import eu.pb4.mapcanvas.api.utils.CanvasUtils;
+import io.github.haykam821.consolebox.game.HardwareConstants;
+import net.minecraft.item.FilledMapItem;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * The sinks of a console that share a frame rate, which share a single canvas as well.
+ *
+ * <p>Each frame is copied into the canvas once and encoded into map updates once, which are then sent to the viewers of every sink in the group.
+ */
+final class SinkGroup {
+	private static final int MAP_SIZE = FilledMapItem.field_30907;
+	private static final int SECTIONS = MathHelper.ceil(HardwareConstants.SCREEN_WIDTH / (double) MAP_SIZE);
+	private static final int OFFSET = (SECTIONS * MAP_SIZE - HardwareConstants.SCREEN_WIDTH) / 2;
+
+	private final int maxFrameRate;
+	private final CombinedPlayerCanvas canvas = DrawableCanvas.create(SECTIONS, SECTIONS);
+	private final List<DisplaySink> sinks = new CopyOnWriteArrayList<>();
+	private final long frameIntervalNanos;
+	private long lastFrameNanos;
+	private boolean destroyed = false;
+
+	SinkGroup(int maxFrameRate) {
+		this.maxFrameRate = maxFrameRate;
+		this.frameIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxFrameRate);
+		this.lastFrameNanos = System.nanoTime() - this.frameIntervalNanos;
+		CanvasUtils.clear(this.canvas, CanvasColor.BLACK_LOW);
+	}
+
+	int getMaxFrameRate() {
+		return this.maxFrameRate;
+	}
+
+	CombinedPlayerCanvas getCanvas() {
+		return this.canvas;
+	}
+
+	List<DisplaySink> getSinks() {
+		return this.sinks;
+	}
+
+	DisplaySink attach() {
+		DisplaySink sink = new DisplaySink(this);
+		this.sinks.add(sink);
+
+		return sink;
+	}
+
+	/**
+	 * @return whether the group has no sinks left, in which case it has been destroyed
+	 */
+	synchronized boolean detach(@Nullable DisplaySink sink) {
+		if (sink != null && this.sinks.remove(sink)) {
+			for (ServerPlayerEntity player : sink.getPlayers()) {
+				this.removePlayer(sink, player);
+			}
+			sink.markDestroyed();
+		}
+
+		if (this.sinks.isEmpty() && !this.destroyed) {
+			this.destroyed = true;
+			this.canvas.destroy();
+		}
+
+		return this.destroyed;
+	}
+
+	synchronized void addPlayer(ServerPlayerEntity player) {
+		if (!this.destroyed) {
+			this.canvas.addPlayer(player);
+		}
+	}
+
+	/**
+	 * Stops sending map updates to a viewer of a sink, unless they also view another sink in the group.
+	 */
+	synchronized void removePlayer(DisplaySink removedFrom, ServerPlayerEntity player) {
+		for (DisplaySink sink : this.sinks) {
+			if (sink != removedFrom && sink.getPlayers().contains(player)) {
+				return;
+			}
+		}
+
+		if (!this.destroyed) {
+			this.canvas.removePlayer(player);
+		}
+	}
+
+	/**
+	 * Copies a converted frame into the canvas and sends it to every viewer in the group if the frame rate allows it.
+	 */
+	synchronized void accept(byte[] colors, long now) {
+		if (this.destroyed || now - this.lastFrameNanos < this.frameIntervalNanos) {
+			return;
+		}
+		this.lastFrameNanos = now;
+
+		int index = 0;
+		for (int y = 0; y < HardwareConstants.SCREEN_HEIGHT; y++) {
+			for (int x = 0; x < HardwareConstants.SCREEN_WIDTH; x++) {
+				this.canvas.setRaw(x + OFFSET, y + OFFSET, colors[index]);
+				index += 1;
+			}
+		}
+
+		this.canvas.sendUpdates();
+	}
+}
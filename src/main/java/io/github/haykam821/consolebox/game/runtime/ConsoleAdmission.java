@@ -0,0 +1,172 @@
+package io.github.haykam821.consolebox.game.runtime;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits how many consoles may run their carts at the same time.
+ *
+ * <p>Consoles over the limit wait in a first-come, first-served queue until a running console is closed.
+ */
+public final class ConsoleAdmission {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleAdmission");
+
+	/**
+	 * A rough upper bound on the heap used by a single session, dominated by its map canvas.
+	 */
+	private static final long ESTIMATED_SESSION_BYTES = 8 * 1024 * 1024;
+
+	private static final int LIMIT = ConsoleAdmission.computeLimit();
+	private static final int MAX_QUEUE_LENGTH = LIMIT * 4;
+
+	private static final Object LOCK = new Object();
+	private static final Deque<Ticket> QUEUE = new ArrayDeque<>();
+	private static int running = 0;
+
+	private static long admitted = 0;
+	private static long totalWaitNanos = 0;
+	private static long maxWaitNanos = 0;
+
+	private ConsoleAdmission() {
+		return;
+	}
+
+	private static int computeLimit() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		long memoryLimit = Runtime.getRuntime().maxMemory() / ESTIMATED_SESSION_BYTES;
+
+		return (int) Math.max(1, Math.min(cores * 2, memoryLimit));
+	}
+
+	/**
+	 * Adds a new session to the queue, admitting it immediately if the limit has not been reached.
+	 *
+	 * @return the session's ticket, or {@code null} if the queue is full
+	 */
+	@Nullable
+	public static Ticket enqueue() {
+		synchronized (LOCK) {
+			if (QUEUE.size() >= MAX_QUEUE_LENGTH) {
+				return null;
+			}
+
+			Ticket ticket = new Ticket();
+			QUEUE.add(ticket);
+			ConsoleAdmission.admitWaiting();
+
+			return ticket;
+		}
+	}
+
+	private static void admitWaiting() {
+		while (running < LIMIT && !QUEUE.isEmpty()) {
+			Ticket ticket = QUEUE.poll();
+			ticket.admitted = true;
+			running += 1;
+
+			long waitNanos = System.nanoTime() - ticket.enqueuedAt;
+			admitted += 1;
+			totalWaitNanos += waitNanos;
+			maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+
+			if (waitNanos > TimeUnit.SECONDS.toNanos(1)) {
+				LOGGER.info("Admitted console session after waiting {} ms in queue", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+			}
+		}
+
+		LOCK.notifyAll();
+	}
+
+	public static Stats getStats() {
+		synchronized (LOCK) {
+			long averageWaitNanos = admitted == 0 ? 0 : totalWaitNanos / admitted;
+			return new Stats(running, LIMIT, QUEUE.size(), TimeUnit.NANOSECONDS.toMillis(averageWaitNanos), TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+		}
+	}
+
+	public record Stats(int running, int limit, int queued, long averageWaitMillis, long maxWaitMillis) {
+	}
+
+	public static final class Ticket {
+		private final long enqueuedAt = System.nanoTime();
+
+		private boolean admitted = false;
+		private boolean released = false;
+
+		private Ticket() {
+			return;
+		}
+
+		/**
+		 * Waits for this ticket to be admitted.
+		 *
+		 * @return whether the ticket was admitted before the timeout elapsed
+		 */
+		public boolean await(long timeoutMillis) throws InterruptedException {
+			synchronized (LOCK) {
+				if (!this.admitted && !this.released) {
+					LOCK.wait(timeoutMillis);
+				}
+
+				return this.admitted;
+			}
+		}
+
+		/**
+		 * @return the one-based position of this ticket in the queue, or {@code 0} if it is not queued
+		 */
+		public int getPosition() {
+			synchronized (LOCK) {
+				int position = 1;
+
+				for (Ticket ticket : QUEUE) {
+					if (ticket == this) {
+						return position;
+					}
+					position += 1;
+				}
+
+				return 0;
+			}
+		}
+
+		/**
+		 * Gives up this ticket if it has not been admitted yet, waking the console thread waiting on it.
+		 * Admitted tickets are left for their console thread to release once it stops running the cart.
+		 */
+		public void cancel() {
+			synchronized (LOCK) {
+				if (!this.admitted) {
+					this.release();
+				}
+			}
+		}
+
+		/**
+		 * Frees this ticket's slot or removes it from the queue. Releasing a ticket more than once has no effect.
+		 */
+		public void release() {
+			synchronized (LOCK) {
+				if (this.released) {
+					return;
+				}
+				this.released = true;
+
+				if (this.admitted) {
+					running -= 1;
+					ConsoleAdmission.admitWaiting();
+				} else {
+					QUEUE.remove(this);
+
+					// Wakes the console thread waiting on this ticket
+					LOCK.notifyAll();
+				}
+			}
+		}
+	}
+}
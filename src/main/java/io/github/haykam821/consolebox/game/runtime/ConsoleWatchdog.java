@@ -0,0 +1,60 @@
+package io.github.haykam821.consolebox.game.runtime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.github.kawamuray.wasmtime.Engine;
+import io.github.kawamuray.wasmtime.Store;
+
+/**
+ * Owns the wasmtime engines shared by consoles and the timer thread that advances their epochs.
+ *
+ * <p>Stores created from these engines trap once their epoch deadline passes, so a cart stuck in a callback
+ * is forced out after a bounded amount of wall-clock time instead of holding its console thread forever.
+ */
+public final class ConsoleWatchdog {
+	private static final long TICK_MILLIS = 10;
+
+	public static final long START_DEADLINE_MILLIS = 5000;
+	public static final long UPDATE_DEADLINE_MILLIS = 500;
+
+	private static final Map<EngineSettings, Engine> ENGINES = new ConcurrentHashMap<>();
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Console Box Watchdog");
+		thread.setDaemon(true);
+
+		return thread;
+	});
+
+	static {
+		TIMER.scheduleAtFixedRate(() -> {
+			for (Engine engine : ENGINES.values()) {
+				engine.incrementEpoch();
+			}
+		}, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private ConsoleWatchdog() {
+		return;
+	}
+
+	public static Engine getEngine(EngineSettings settings) {
+		return ENGINES.computeIfAbsent(settings, key -> {
+			return new Engine(key.createConfig().epochInterruption(true));
+		});
+	}
+
+	public static Store<Void> createStore(Engine engine) {
+		return Store.withoutData(engine);
+	}
+
+	/**
+	 * Allows the store to run for the given amount of wall-clock time before trapping.
+	 */
+	public static void arm(Store<?> store, long millis) {
+		store.setEpochDeadline(Math.max(1, millis / TICK_MILLIS));
+	}
+}
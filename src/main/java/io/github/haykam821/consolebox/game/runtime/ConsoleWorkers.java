@@ -0,0 +1,37 @@
+package io.github.haykam821.consolebox.game.runtime;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared pools for console work that should stay off both the server thread and the console threads.
+ */
+public final class ConsoleWorkers {
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+	private static final AtomicInteger ENCODER_THREAD_COUNT = new AtomicInteger();
+
+	/**
+	 * Runs long tasks such as compiling and linking carts.
+	 */
+	public static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+		Thread thread = new Thread(runnable, "Console Box Worker #" + THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+
+		return thread;
+	});
+
+	/**
+	 * Converts finished frames to map data and sends them, kept apart from {@link #EXECUTOR} so that compiling a cart never delays frames.
+	 */
+	public static final ExecutorService ENCODER = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+		Thread thread = new Thread(runnable, "Console Box Encoder #" + ENCODER_THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+
+		return thread;
+	});
+
+	private ConsoleWorkers() {
+		return;
+	}
+}
@@ -0,0 +1,60 @@
+package io.github.haykam821.consolebox.game.runtime;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+
+import io.github.kawamuray.wasmtime.Config;
+import io.github.kawamuray.wasmtime.OptLevel;
+import net.minecraft.util.StringIdentifiable;
+
+/**
+ * Settings for how carts are compiled. Consoles with equal settings share an engine and compiled modules.
+ */
+public record EngineSettings(
+	Optimization optimization,
+	boolean simd,
+	boolean bulkMemory,
+	boolean multiValue
+) {
+	public static final EngineSettings DEFAULT = new EngineSettings(Optimization.SPEED, true, true, true);
+
+	public static final Codec<EngineSettings> CODEC = RecordCodecBuilder.create(instance -> {
+		return instance.group(
+			Optimization.CODEC.optionalFieldOf("optimization", DEFAULT.optimization()).forGetter(EngineSettings::optimization),
+			Codec.BOOL.optionalFieldOf("simd", DEFAULT.simd()).forGetter(EngineSettings::simd),
+			Codec.BOOL.optionalFieldOf("bulk_memory", DEFAULT.bulkMemory()).forGetter(EngineSettings::bulkMemory),
+			Codec.BOOL.optionalFieldOf("multi_value", DEFAULT.multiValue()).forGetter(EngineSettings::multiValue)
+		).apply(instance, EngineSettings::new);
+	});
+
+	public Config createConfig() {
+		return new Config()
+			.craneliftOptLevel(this.optimization.level)
+			.wasmSimd(this.simd)
+			.wasmBulkMemory(this.bulkMemory)
+			// Reference types cannot be enabled without bulk memory
+			.wasmReferenceTypes(this.bulkMemory)
+			.wasmMultiValue(this.multiValue);
+	}
+
+	public enum Optimization implements StringIdentifiable {
+		NONE("none", OptLevel.NONE),
+		SPEED("speed", OptLevel.SPEED),
+		SPEED_AND_SIZE("speed_and_size", OptLevel.SPEED_AND_SIZE);
+
+		public static final Codec<Optimization> CODEC = StringIdentifiable.createCodec(Optimization::values);
+
+		private final String name;
+		private final OptLevel level;
+
+		private Optimization(String name, OptLevel level) {
+			this.name = name;
+			this.level = level;
+		}
+
+		@Override
+		public String asString() {
+			return this.name;
+		}
+	}
+}
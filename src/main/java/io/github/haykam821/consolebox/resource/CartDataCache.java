@@ -0,0 +1,71 @@
+package io.github.haykam821.consolebox.resource;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.hash.HashCode;
+
+import net.minecraft.resource.ResourceManager;
+
+/**
+ * A least recently used cache of cart data, bounded by the total size of the cached carts.
+ */
+public final class CartDataCache {
+	private final long maxBytes;
+
+	private final Map<HashCode, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes = 0;
+
+	public CartDataCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	public synchronized byte[] get(CartEntry entry, ResourceManager manager) throws IOException {
+		byte[] data = this.entries.get(entry.hash());
+		if (data != null) {
+			return data;
+		}
+
+		data = entry.read(manager);
+
+		this.entries.put(entry.hash(), data);
+		this.bytes += data.length;
+		this.trim();
+
+		return data;
+	}
+
+	private void trim() {
+		Iterator<byte[]> iterator = this.entries.values().iterator();
+
+		// The most recently read cart is always kept, even if it alone exceeds the limit
+		while (this.bytes > this.maxBytes && this.entries.size() > 1) {
+			this.bytes -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Evicts the data of carts whose hashes are not in the given set, such as carts that were removed or changed on reload.
+	 */
+	public synchronized void retain(Set<HashCode> hashes) {
+		Iterator<Map.Entry<HashCode, byte[]>> iterator = this.entries.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<HashCode, byte[]> entry = iterator.next();
+
+			if (!hashes.contains(entry.getKey())) {
+				this.bytes -= entry.getValue().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+		this.bytes = 0;
+	}
+}
@@ -0,0 +1,42 @@
+package io.github.haykam821.consolebox.resource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+
+/**
+ * Describes a cart without holding its data, which is read on demand from the resource at its path.
+ *
+ * <p>Byte-identical carts share a single entry, even when they are published under different IDs.
+ */
+public record CartEntry(HashCode hash, long size, String packId, Identifier path) {
+	/**
+	 * Reads the cart data through the given resource manager, which must be the one that is currently loaded,
+	 * as resources cannot be read once the resource manager that they came from has been closed on reload.
+	 *
+	 * @throws IOException if the cart is no longer available or its data has changed since it was indexed
+	 */
+	public byte[] read(ResourceManager manager) throws IOException {
+		Resource resource = manager.getResource(this.path).orElseThrow(() -> {
+			return new FileNotFoundException("Console game '" + this.path + "' is no longer available");
+		});
+
+		byte[] data;
+		try (InputStream stream = resource.getInputStream()) {
+			data = stream.readAllBytes();
+		}
+
+		if (!Hashing.sha256().hashBytes(data).equals(this.hash)) {
+			throw new IOException("Console game '" + this.path + "' has changed since it was indexed");
+		}
+
+		return data;
+	}
+}
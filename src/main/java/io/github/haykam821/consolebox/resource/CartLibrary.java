@@ -0,0 +1,200 @@
+package io.github.haykam821.consolebox.resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.hash.HashCode;
+
+import io.github.haykam821.consolebox.game.runtime.ConsoleWatchdog;
+import io.github.haykam821.consolebox.game.runtime.EngineSettings;
+import io.github.kawamuray.wasmtime.Module;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+
+/**
+ * An index of the available carts along with the modules compiled from them so far.
+ *
+ * <p>Modules are compiled the first time a cart is opened and are shared by every console running the same cart data
+ * with the same engine settings.
+ * Libraries are replaced as a whole on reload, so consoles that are already running keep the modules they were linked with.
+ */
+public final class CartLibrary {
+	public static final CartLibrary EMPTY = new CartLibrary(Map.of(), new ConcurrentHashMap<>(), null);
+
+	private final Map<Identifier, CartEntry> games;
+	private final Map<ModuleKey, CompletableFuture<CompiledCart>> modules;
+
+	/**
+	 * The resource manager that the index was built from, through which cart data is read.
+	 */
+	@Nullable
+	private final ResourceManager manager;
+
+	/**
+	 * Whether this library has been replaced, after which no modules are added to it.
+	 */
+	private boolean closed = false;
+
+	private CartLibrary(Map<Identifier, CartEntry> games, Map<ModuleKey, CompletableFuture<CompiledCart>> modules, @Nullable ResourceManager manager) {
+		this.games = games;
+		this.modules = modules;
+		this.manager = manager;
+	}
+
+	@Nullable
+	public CartEntry get(Identifier id) {
+		return this.games.get(id);
+	}
+
+	public int size() {
+		return this.games.size();
+	}
+
+	/**
+	 * @return the hashes of the carts in the index
+	 */
+	public Set<HashCode> getHashes() {
+		Set<HashCode> hashes = new HashSet<>();
+		for (CartEntry entry : this.games.values()) {
+			hashes.add(entry.hash());
+		}
+
+		return hashes;
+	}
+
+	/**
+	 * Gets the compiled module for a cart, compiling it on the calling thread if no other thread has already started to.
+	 *
+	 * @return the compiled cart, which the caller must release once it no longer uses the module, or {@code null} if this library
+	 * was replaced before the module could be retained, in which case the module should be requested from the current library
+	 */
+	@Nullable
+	public CompiledCart getModule(CartEntry entry, EngineSettings settings, CartDataCache cache) {
+		ModuleKey key = new ModuleKey(entry.hash(), settings);
+
+		CompletableFuture<CompiledCart> created = new CompletableFuture<>();
+		CompletableFuture<CompiledCart> existing;
+
+		synchronized (this) {
+			// Modules added after the library was replaced would never be released
+			if (this.closed) {
+				return null;
+			}
+
+			existing = this.modules.putIfAbsent(key, created);
+		}
+
+		if (existing != null) {
+			return existing.join().tryRetain();
+		}
+
+		try {
+			created.complete(CartLibrary.compile(entry, settings, cache, this.manager));
+		} catch (Throwable e) {
+			this.modules.remove(key, created);
+			created.completeExceptionally(e);
+		}
+
+		// The module may have been released already if the library was replaced during compilation
+		return created.join().tryRetain();
+	}
+
+	/**
+	 * Creates a library for a new index that keeps the modules of unchanged carts.
+	 *
+	 * <p>Carts that were compiled in this library but whose data changed are recompiled in parallel,
+	 * so that the new library is as warm as this one once it is ready.
+	 *
+	 * @param manager the resource manager that the new index was built from
+	 */
+	public CompletableFuture<CartLibrary> update(Map<Identifier, CartEntry> games, ResourceManager manager, CartDataCache cache, Executor executor) {
+		Map<ModuleKey, CompletableFuture<CompiledCart>> modules = new ConcurrentHashMap<>();
+		Set<ModuleKey> recompiled = new HashSet<>();
+		List<CompletableFuture<?>> futures = new ArrayList<>();
+
+		Set<HashCode> hashes = new HashSet<>();
+		for (CartEntry entry : games.values()) {
+			hashes.add(entry.hash());
+		}
+
+		for (Map.Entry<ModuleKey, CompletableFuture<CompiledCart>> module : this.modules.entrySet()) {
+			if (hashes.contains(module.getKey().hash())) {
+				modules.put(module.getKey(), module.getValue());
+			}
+		}
+
+		for (Map.Entry<Identifier, CartEntry> game : games.entrySet()) {
+			CartEntry entry = game.getValue();
+			CartEntry previous = this.games.get(game.getKey());
+
+			if (previous == null || previous.hash().equals(entry.hash())) {
+				continue;
+			}
+
+			for (ModuleKey previousKey : this.modules.keySet()) {
+				ModuleKey key = new ModuleKey(entry.hash(), previousKey.settings());
+
+				if (previousKey.hash().equals(previous.hash()) && !modules.containsKey(key) && recompiled.add(key)) {
+					CompletableFuture<CompiledCart> future = CompletableFuture.supplyAsync(() -> CartLibrary.compile(entry, key.settings(), cache, manager), executor);
+
+					// Carts that fail to compile are left out, so opening them reports the error
+					futures.add(future.handle((result, throwable) -> {
+						if (throwable == null) {
+							modules.put(key, future);
+						}
+						return null;
+					}));
+				}
+			}
+		}
+
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(result -> {
+			return new CartLibrary(Map.copyOf(games), modules, manager);
+		});
+	}
+
+	/**
+	 * Releases the library's reference to modules that are not carried over to the given library.
+	 * Modules that are still being compiled are released once their compilation completes.
+	 */
+	public void releaseReplaced(CartLibrary next) {
+		synchronized (this) {
+			this.closed = true;
+		}
+
+		for (CompletableFuture<CompiledCart> future : this.modules.values()) {
+			if (!next.modules.containsValue(future)) {
+				future.thenAccept(CompiledCart::release);
+			}
+		}
+	}
+
+	private static CompiledCart compile(CartEntry entry, EngineSettings settings, CartDataCache cache, @Nullable ResourceManager manager) {
+		if (manager == null) {
+			throw new IllegalStateException("Cannot compile a console game before any have been loaded");
+		}
+
+		try {
+			// Hidden mutable globals such as the stack pointer are exported so that snapshots can capture them
+			ModuleGlobals.Result globals = ModuleGlobals.exportMutableGlobals(cache.get(entry, manager));
+			Module module = new Module(ConsoleWatchdog.getEngine(settings), globals.binary());
+
+			return new CompiledCart(module, entry.size(), globals.capturable(), globals.globals());
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	private record ModuleKey(HashCode hash, EngineSettings settings) {
+	}
+}
@@ -0,0 +1,87 @@
+package io.github.haykam821.consolebox.resource;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.kawamuray.wasmtime.Module;
+
+/**
+ * A compiled module shared by the cart library and the consoles linked against it.
+ *
+ * <p>The library holds one reference until the module is dropped on reload, and each console holds one
+ * until it is closed; the module is closed once the last reference is released.
+ */
+public final class CompiledCart {
+	private static final Logger LOGGER = LoggerFactory.getLogger("CompiledCart");
+
+	private final Module module;
+	private final long size;
+	private final boolean capturable;
+	private final int globals;
+
+	private int references = 1;
+
+	protected CompiledCart(Module module, long size, boolean capturable, int globals) {
+		this.module = module;
+		this.size = size;
+		this.capturable = capturable;
+		this.globals = globals;
+	}
+
+	public Module getModule() {
+		return this.module;
+	}
+
+	/**
+	 * @return the size of the cart data the module was compiled from, as a rough measure of the module's native size
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return whether every mutable global of the module is exported, which means that the state of its instances can be
+	 * fully captured from outside
+	 * @see ModuleGlobals#exportMutableGlobals(byte[])
+	 */
+	public boolean canCaptureState() {
+		return this.capturable;
+	}
+
+	/**
+	 * @return the number of globals in the module, which bounds the number of globals in a snapshot of its instances
+	 */
+	public int getGlobalCount() {
+		return this.globals;
+	}
+
+	/**
+	 * Adds a reference to the module unless it has already been closed.
+	 *
+	 * @return this compiled cart, or {@code null} if its module has already been closed
+	 */
+	@Nullable
+	public synchronized CompiledCart tryRetain() {
+		if (this.references <= 0) {
+			return null;
+		}
+
+		this.references += 1;
+		return this;
+	}
+
+	public synchronized void release() {
+		if (this.references <= 0) {
+			// Closing the module again would free its native memory twice
+			LOGGER.error("Released a compiled cart that has already been closed", new IllegalStateException());
+			return;
+		}
+
+		this.references -= 1;
+
+		if (this.references == 0) {
+			this.module.close();
+		}
+	}
+}
@@ -1,41 +1,102 @@
 package io.github.haykam821.consolebox.resource;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
 import io.github.haykam821.consolebox.ConsoleBox;
+import io.github.haykam821.consolebox.game.ConsoleWarmPool;
+import io.github.haykam821.consolebox.game.runtime.EngineSettings;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
-import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.fabric.api.resource.SimpleResourceReloadListener;
 import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
 
-public class ConsoleGameManager implements SimpleSynchronousResourceReloadListener {
+public class ConsoleGameManager implements SimpleResourceReloadListener<CartLibrary> {
 	private static final Identifier ID = ConsoleBox.identifier("console_games");
 	private static final Logger LOGGER = LoggerFactory.getLogger("ConsoleGameManager");
 
 	private static final String GAME_PREFIX = "console_games";
 	private static final String GAME_EXTENSION = ".wasm";
 
-	private static final Map<Identifier, byte[]> GAMES = new HashMap<>();
+	private static final long MAX_CACHED_BYTES = 16 * 1024 * 1024;
+
+	/**
+	 * The library of available carts, which only holds metadata and compiled modules; cart data is read on demand through the resource
+	 * manager of the library.
+	 */
+	private static volatile CartLibrary library = CartLibrary.EMPTY;
+	private static final CartDataCache CACHE = new CartDataCache(MAX_CACHED_BYTES);
+
+	@Override
+	public CompletableFuture<CartLibrary> load(ResourceManager manager, Executor executor) {
+		CartLibrary previous = library;
+
+		return CompletableFuture.supplyAsync(() -> {
+			return manager.findResources(GAME_PREFIX, this::isGamePath);
+		}, executor).thenCompose(resources -> {
+			// Carts are hashed in parallel, and the previous library stays active until the new one is applied
+			List<CompletableFuture<IndexedCart>> futures = resources.entrySet().stream().map(entry -> {
+				return CompletableFuture.supplyAsync(() -> this.indexResource(entry.getKey(), entry.getValue()), executor);
+			}).toList();
+
+			return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenCompose(result -> {
+				Map<Identifier, CartEntry> index = new HashMap<>();
+				Map<HashCode, CartEntry> entries = new HashMap<>();
+
+				for (CompletableFuture<IndexedCart> future : futures) {
+					IndexedCart cart = future.join();
+
+					if (cart != null) {
+						index.put(cart.id(), entries.computeIfAbsent(cart.entry().hash(), hash -> cart.entry()));
+					}
+				}
+
+				return previous.update(index, manager, CACHE, executor);
+			});
+		});
+	}
 
 	@Override
-	public void reload(ResourceManager manager) {
-		GAMES.clear();
-		manager.findResources(GAME_PREFIX, this::isGamePath).forEach(this::loadResource);
+	public CompletableFuture<Void> apply(CartLibrary data, ResourceManager manager, Executor executor) {
+		return CompletableFuture.runAsync(() -> {
+			CartLibrary previous = library;
+			library = data;
+			previous.releaseReplaced(data);
+
+			// Data of carts that were removed or changed is no longer needed, as new consoles cannot open them
+			CACHE.retain(data.getHashes());
+
+			LOGGER.info("Loaded {} console games", data.size());
+
+			// Pooled consoles were linked against the previous cart data
+			ConsoleWarmPool.clear();
+		}, executor);
 	}
 
-	private void loadResource(Identifier path, Resource resource) {
-		try {
-			Identifier id = this.parsePath(path);
-			GAMES.put(id, resource.getInputStream().readAllBytes());
+	@Nullable
+	private IndexedCart indexResource(Identifier path, Resource resource) {
+		try (InputStream stream = resource.getInputStream()) {
+			byte[] data = stream.readAllBytes();
+			HashCode hash = Hashing.sha256().hashBytes(data);
+
+			return new IndexedCart(this.parsePath(path), new CartEntry(hash, data.length, resource.getPackId(), path));
 		} catch (IOException exception) {
 			LOGGER.error("Failed to load console game '{}'", path, exception);
+			return null;
 		}
 	}
 
@@ -56,12 +117,37 @@ public class ConsoleGameManager implements SimpleSynchronousResourceReloadListen
 		});
 	}
 
-	public static byte[] getGameData(Identifier id) {
-		return GAMES.get(id);
+	@Nullable
+	public static CartEntry getEntry(Identifier id) {
+		return library.get(id);
+	}
+
+	/**
+	 * Gets the compiled module for a cart, compiling it if this is the first time the cart is opened.
+	 *
+	 * @return the compiled cart, which the caller must release once it no longer uses the module
+	 */
+	public static CompiledCart getModule(CartEntry entry, EngineSettings settings) {
+		while (true) {
+			CartLibrary current = library;
+			CompiledCart compiledCart = current.getModule(entry, settings, CACHE);
+
+			if (compiledCart != null) {
+				return compiledCart;
+			}
+
+			// A library only refuses modules once it has been replaced, so the request is redirected to its replacement
+			if (current == library) {
+				throw new IllegalStateException("Cannot get the module of a console game from a library that has been replaced");
+			}
+		}
 	}
 
 	public static void register() {
 		ResourceManagerHelper serverData = ResourceManagerHelper.get(ResourceType.SERVER_DATA);
 		serverData.registerReloadListener(new ConsoleGameManager());
 	}
+
+	private record IndexedCart(Identifier id, CartEntry entry) {
+	}
 }
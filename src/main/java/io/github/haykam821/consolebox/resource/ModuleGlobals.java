@@ -0,0 +1,376 @@
+package io.github.haykam821.consolebox.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the globals that a WebAssembly module defines and exports from its binary, and exports the mutable globals that it does not.
+ *
+ * <p>Only exported globals can be read and written from outside an instance. Most compilers emit mutable globals that are not
+ * exported, such as a stack pointer or the state of an allocator, so these are exported under generated names before the module
+ * is compiled, which lets the whole state of its instances be captured and restored.
+ */
+public final class ModuleGlobals {
+	private static final Logger LOGGER = LoggerFactory.getLogger("ModuleGlobals");
+
+	private static final String EXPORT_PREFIX = "__consolebox_global_";
+
+	private static final int HEADER_SIZE = 8;
+
+	private static final int IMPORT_SECTION = 2;
+	private static final int GLOBAL_SECTION = 6;
+	private static final int EXPORT_SECTION = 7;
+	private static final int START_SECTION = 8;
+	private static final int ELEMENT_SECTION = 9;
+	private static final int CODE_SECTION = 10;
+	private static final int DATA_SECTION = 11;
+	private static final int DATA_COUNT_SECTION = 12;
+
+	private static final int FUNCTION_KIND = 0;
+	private static final int TABLE_KIND = 1;
+	private static final int MEMORY_KIND = 2;
+	private static final int GLOBAL_KIND = 3;
+	private static final int TAG_KIND = 4;
+
+	private static final int END_OPCODE = 0x0B;
+
+	private ModuleGlobals() {
+		return;
+	}
+
+	/**
+	 * Adds an export for every mutable global that the given module does not export.
+	 *
+	 * @return the rewritten module, or the given module unchanged if its state cannot be captured, which is the case
+	 * if it has mutable globals that are imported or of a type that snapshots cannot hold, or if it cannot be read
+	 */
+	public static Result exportMutableGlobals(byte[] binary) {
+		try {
+			return ModuleGlobals.rewrite(binary);
+		} catch (RuntimeException exception) {
+			LOGGER.warn("Failed to read the globals of a cart; assuming that its state cannot be captured", exception);
+			return new Result(binary, 0, false);
+		}
+	}
+
+	private static Result rewrite(byte[] binary) {
+		Reader reader = new Reader(binary, HEADER_SIZE);
+		ModuleInfo module = new ModuleInfo();
+
+		int exportStart = -1;
+		int exportEnd = -1;
+		int insertAt = binary.length;
+
+		while (reader.hasRemaining()) {
+			int sectionStart = reader.position;
+			int section = reader.readByte();
+			int size = (int) reader.readUnsigned();
+			int end = reader.position + size;
+
+			if (section == IMPORT_SECTION) {
+				ModuleGlobals.readImports(reader, module);
+			} else if (section == GLOBAL_SECTION) {
+				ModuleGlobals.readGlobals(reader, module);
+			} else if (section == EXPORT_SECTION) {
+				exportStart = sectionStart;
+				exportEnd = end;
+				ModuleGlobals.readExports(reader, module);
+			} else if (insertAt == binary.length && ModuleGlobals.followsExports(section)) {
+				insertAt = sectionStart;
+			}
+
+			reader.position = end;
+		}
+
+		if (module.uncapturable) {
+			return new Result(binary, module.globals, false);
+		}
+
+		BitSet hidden = (BitSet) module.mutable.clone();
+		hidden.andNot(module.exported);
+
+		if (hidden.isEmpty()) {
+			return new Result(binary, module.globals, true);
+		}
+
+		// Appends the new exports to the existing export section, or adds one where it belongs
+		Writer exports = new Writer();
+		exports.writeUnsigned(module.exportCount + hidden.cardinality());
+		if (exportStart != -1) {
+			exports.write(binary, module.exportEntriesStart, exportEnd - module.exportEntriesStart);
+		}
+
+		for (int index = hidden.nextSetBit(0); index >= 0; index = hidden.nextSetBit(index + 1)) {
+			String name = EXPORT_PREFIX + index;
+			while (module.exportNames.contains(name)) {
+				name += "_";
+			}
+
+			byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			exports.writeUnsigned(nameBytes.length);
+			exports.write(nameBytes, 0, nameBytes.length);
+			exports.writeByte(GLOBAL_KIND);
+			exports.writeUnsigned(index);
+		}
+
+		byte[] section = exports.toByteArray();
+		int replaceStart = exportStart != -1 ? exportStart : insertAt;
+		int replaceEnd = exportStart != -1 ? exportEnd : insertAt;
+
+		Writer output = new Writer();
+		output.write(binary, 0, replaceStart);
+		output.writeByte(EXPORT_SECTION);
+		output.writeUnsigned(section.length);
+		output.write(section, 0, section.length);
+		output.write(binary, replaceEnd, binary.length - replaceEnd);
+
+		return new Result(output.toByteArray(), module.globals, true);
+	}
+
+	/**
+	 * @return whether a section comes after the export section in a module
+	 */
+	private static boolean followsExports(int section) {
+		return section == START_SECTION || section == ELEMENT_SECTION || section == DATA_COUNT_SECTION || section == CODE_SECTION || section == DATA_SECTION;
+	}
+
+	private static boolean isSupportedType(int type) {
+		// i32, i64, f32 and f64
+		return type >= 0x7C && type <= 0x7F;
+	}
+
+	private static void readImports(Reader reader, ModuleInfo module) {
+		long count = reader.readUnsigned();
+
+		for (long index = 0; index < count; index++) {
+			reader.skipName();
+			reader.skipName();
+
+			int kind = reader.readByte();
+			switch (kind) {
+				case FUNCTION_KIND -> reader.readUnsigned();
+				case TABLE_KIND -> {
+					reader.readValueType();
+					reader.skipLimits();
+				}
+				case MEMORY_KIND -> reader.skipLimits();
+				case GLOBAL_KIND -> {
+					reader.readValueType();
+
+					// Imported globals belong to the host, so their values are not part of the cart's state
+					if (reader.readByte() != 0) {
+						module.uncapturable = true;
+					}
+					module.globals += 1;
+				}
+				case TAG_KIND -> {
+					reader.readByte();
+					reader.readUnsigned();
+				}
+				default -> throw new IllegalArgumentException("Unknown import kind " + kind);
+			}
+		}
+	}
+
+	private static void readGlobals(Reader reader, ModuleInfo module) {
+		long count = reader.readUnsigned();
+
+		for (long index = 0; index < count; index++) {
+			int type = reader.readValueType();
+
+			if (reader.readByte() != 0) {
+				module.mutable.set(module.globals);
+
+				if (!ModuleGlobals.isSupportedType(type)) {
+					module.uncapturable = true;
+				}
+			}
+
+			reader.skipConstantExpression();
+			module.globals += 1;
+		}
+	}
+
+	private static void readExports(Reader reader, ModuleInfo module) {
+		long count = reader.readUnsigned();
+
+		module.exportCount = count;
+		module.exportEntriesStart = reader.position;
+
+		for (long index = 0; index < count; index++) {
+			module.exportNames.add(reader.readName());
+
+			int kind = reader.readByte();
+			long exportIndex = reader.readUnsigned();
+
+			if (kind == GLOBAL_KIND) {
+				module.exported.set((int) exportIndex);
+			}
+		}
+	}
+
+	/**
+	 * @param binary the module to compile
+	 * @param globals the number of globals in the module, both imported and defined
+	 * @param capturable whether every mutable global of the module is exported in the binary
+	 */
+	public record Result(byte[] binary, int globals, boolean capturable) {
+	}
+
+	private static final class ModuleInfo {
+		private final BitSet mutable = new BitSet();
+		private final BitSet exported = new BitSet();
+		private final Set<String> exportNames = new HashSet<>();
+
+		private int globals = 0;
+		private long exportCount = 0;
+		private int exportEntriesStart = -1;
+		private boolean uncapturable = false;
+	}
+
+	private static final class Writer extends ByteArrayOutputStream {
+		private void writeByte(int value) {
+			this.write(value);
+		}
+
+		private void writeUnsigned(long value) {
+			do {
+				int part = (int) (value & 0x7F);
+				value >>>= 7;
+
+				this.write(value == 0 ? part : part | 0x80);
+			} while (value != 0);
+		}
+	}
+
+	private static final class Reader {
+		private final byte[] binary;
+		private int position;
+
+		private Reader(byte[] binary, int position) {
+			this.binary = binary;
+			this.position = position;
+		}
+
+		private boolean hasRemaining() {
+			return this.position < this.binary.length;
+		}
+
+		private int readByte() {
+			if (!this.hasRemaining()) {
+				throw new IllegalArgumentException("Unexpected end of module");
+			}
+
+			return this.binary[this.position++] & 0xFF;
+		}
+
+		private long readUnsigned() {
+			long value = 0;
+			int shift = 0;
+
+			while (true) {
+				int part = this.readByte();
+				value |= (long) (part & 0x7F) << shift;
+
+				if ((part & 0x80) == 0) {
+					return value;
+				}
+				shift += 7;
+			}
+		}
+
+		/**
+		 * Skips a signed integer, whose bits are not needed.
+		 */
+		private void skipSigned() {
+			while ((this.readByte() & 0x80) != 0) {
+				continue;
+			}
+		}
+
+		private void skip(int length) {
+			if (length < 0 || length > this.binary.length - this.position) {
+				throw new IllegalArgumentException("Unexpected end of module");
+			}
+
+			this.position += length;
+		}
+
+		private void skipName() {
+			this.skip((int) this.readUnsigned());
+		}
+
+		private String readName() {
+			int length = (int) this.readUnsigned();
+			int start = this.position;
+			this.skip(length);
+
+			return new String(this.binary, start, length, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * @return the first byte of a value type, after which any heap type is skipped
+		 */
+		private int readValueType() {
+			int type = this.readByte();
+
+			// Reference types with a heap type, from the function references proposal
+			if (type == 0x63 || type == 0x64) {
+				this.skipSigned();
+			}
+
+			return type;
+		}
+
+		private void skipLimits() {
+			int flags = this.readByte();
+			this.readUnsigned();
+
+			if ((flags & 0x01) != 0) {
+				this.readUnsigned();
+			}
+		}
+
+		private void skipConstantExpression() {
+			while (true) {
+				int opcode = this.readByte();
+
+				switch (opcode) {
+					case END_OPCODE -> {
+						return;
+					}
+					// i32.const, i64.const
+					case 0x41, 0x42 -> this.skipSigned();
+					// f32.const
+					case 0x43 -> this.skip(Float.BYTES);
+					// f64.const
+					case 0x44 -> this.skip(Double.BYTES);
+					// global.get, ref.func
+					case 0x23, 0xD2 -> this.readUnsigned();
+					// ref.null
+					case 0xD0 -> this.skipSigned();
+					// Extended constant arithmetic
+					case 0x6A, 0x6B, 0x6C, 0x7C, 0x7D, 0x7E -> {
+						continue;
+					}
+					case 0xFD -> {
+						long simdOpcode = this.readUnsigned();
+
+						// v128.const
+						if (simdOpcode != 12) {
+							throw new IllegalArgumentException("Unsupported constant SIMD opcode " + simdOpcode);
+						}
+						this.skip(16);
+					}
+					default -> throw new IllegalArgumentException("Unsupported constant opcode " + opcode);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package io.github.haykam821.consolebox.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import com.sun.management.ThreadMXBean;
+
+public class ConsoleTextTest {
+	private static final int DRAW_COLORS = 0x0012;
+	private static final String TEXT = "Hello, world!\nScore: 12345";
+
+	private static final int ASCII_ADDRESS = 0;
+	private static final int UTF16_ADDRESS = 256;
+	private static final int UTF16_LENGTH = TEXT.length() * 2;
+
+	private static final Logger LOGGER = NOPLogger.NOP_LOGGER;
+
+	private static final int WARMUP_ITERATIONS = 20_000;
+	private static final int ITERATIONS = 10_000;
+
+	private static MemoryView createMemory() {
+		ByteBuffer memory = ByteBuffer.allocate(1024);
+
+		memory.put(ASCII_ADDRESS, (TEXT + "\0").getBytes(StandardCharsets.US_ASCII));
+		memory.put(UTF16_ADDRESS, TEXT.getBytes(StandardCharsets.UTF_16LE));
+
+		return new MemoryView(memory);
+	}
+
+	private static MemoryView createFramebuffer() {
+		return new MemoryView(ByteBuffer.allocate(HardwareConstants.SCREEN_AREA / 4));
+	}
+
+	/**
+	 * Draws and traces the same text through every import, as a text-heavy cart would in a single frame.
+	 */
+	private static void drawFrame(MemoryView memory, MemoryView framebuffer) {
+		ConsoleText.text(memory, framebuffer, DRAW_COLORS, ASCII_ADDRESS, 4, 4);
+		ConsoleText.textUtf8(memory, framebuffer, DRAW_COLORS, ASCII_ADDRESS, TEXT.length(), 4, 24);
+		ConsoleText.textUtf16(memory, framebuffer, DRAW_COLORS, UTF16_ADDRESS, UTF16_LENGTH, 4, 44);
+
+		ConsoleText.trace(LOGGER, memory, ASCII_ADDRESS);
+		ConsoleText.traceUtf8(LOGGER, memory, ASCII_ADDRESS, TEXT.length());
+		ConsoleText.traceUtf16(LOGGER, memory, UTF16_ADDRESS, UTF16_LENGTH);
+		ConsoleText.tracef(LOGGER, memory, ASCII_ADDRESS);
+	}
+
+	@Test
+	public void textImportsDrawTheSameText() {
+		MemoryView memory = ConsoleTextTest.createMemory();
+
+		MemoryView expected = ConsoleTextTest.createFramebuffer();
+		ConsoleText.text(memory, expected, DRAW_COLORS, ASCII_ADDRESS, 4, 4);
+
+		MemoryView utf8 = ConsoleTextTest.createFramebuffer();
+		ConsoleText.textUtf8(memory, utf8, DRAW_COLORS, ASCII_ADDRESS, TEXT.length(), 4, 4);
+
+		// A trailing odd byte is not a whole code unit, so it is not drawn
+		MemoryView utf16 = ConsoleTextTest.createFramebuffer();
+		ConsoleText.textUtf16(memory, utf16, DRAW_COLORS, UTF16_ADDRESS, UTF16_LENGTH + 1, 4, 4);
+
+		for (int address = 0; address < expected.size(); address++) {
+			assertEquals(expected.getByte(address), utf8.getByte(address), "UTF-8 text differs at " + address);
+			assertEquals(expected.getByte(address), utf16.getByte(address), "UTF-16 text differs at " + address);
+		}
+	}
+
+	@Test
+	public void textImportsDoNotAllocate() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		assumeTrue(!LOGGER.isTraceEnabled());
+
+		MemoryView memory = ConsoleTextTest.createMemory();
+		MemoryView framebuffer = ConsoleTextTest.createFramebuffer();
+
+		for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+			ConsoleTextTest.drawFrame(memory, framebuffer);
+		}
+
+		long threadId = Thread.currentThread().threadId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			ConsoleTextTest.drawFrame(memory, framebuffer);
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		// Decoding a traced string would allocate at least an array header per frame, so anything below a byte per frame is measurement noise
+		assertTrue(allocated < ITERATIONS, "Drawing and tracing text allocated " + allocated + " bytes over " + ITERATIONS + " frames");
+	}
+}
@@ -0,0 +1,75 @@
+package io.github.haykam821.consolebox.game.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import io.github.haykam821.consolebox.game.HardwareConstants;
+import io.github.haykam821.consolebox.game.MemoryView;
+
+public class FramebufferRenderingTest {
+	private static final int DRAW_COLORS = 0x0012;
+	private static final byte[] TEXT = "Hello, world!\nScore: 12345\0".getBytes(StandardCharsets.US_ASCII);
+
+	private static final int WARMUP_ITERATIONS = 20_000;
+	private static final int ITERATIONS = 10_000;
+
+	private static MemoryView createFramebuffer() {
+		return new MemoryView(ByteBuffer.allocate(HardwareConstants.SCREEN_AREA / 4));
+	}
+
+	private static void drawText(MemoryView framebuffer, MemoryView string, int stride) {
+		FramebufferRendering.drawText(framebuffer, DRAW_COLORS, string, 0, string.size(), stride, 4, 4);
+	}
+
+	@Test
+	public void drawTextReadsUtf16LowBytes() {
+		ByteBuffer utf16 = ByteBuffer.allocate(TEXT.length * 2);
+		for (byte character : TEXT) {
+			utf16.put(character).put((byte) 0);
+		}
+
+		MemoryView expected = FramebufferRenderingTest.createFramebuffer();
+		FramebufferRenderingTest.drawText(expected, new MemoryView(ByteBuffer.wrap(TEXT)), 1);
+
+		MemoryView actual = FramebufferRenderingTest.createFramebuffer();
+		FramebufferRenderingTest.drawText(actual, new MemoryView(utf16.flip()), 2);
+
+		for (int address = 0; address < expected.size(); address++) {
+			assertEquals(expected.getByte(address), actual.getByte(address), "Framebuffer differs at " + address);
+		}
+	}
+
+	@Test
+	public void drawTextDoesNotAllocate() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		MemoryView framebuffer = FramebufferRenderingTest.createFramebuffer();
+		MemoryView string = new MemoryView(ByteBuffer.wrap(TEXT));
+
+		for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+			FramebufferRenderingTest.drawText(framebuffer, string, 1);
+		}
+
+		long threadId = Thread.currentThread().threadId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			FramebufferRenderingTest.drawText(framebuffer, string, 1);
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		// Copying the string would allocate at least an array header per call, so anything below a byte per call is measurement noise
+		assertTrue(allocated < ITERATIONS, "Drawing text allocated " + allocated + " bytes over " + ITERATIONS + " calls");
+	}
+}